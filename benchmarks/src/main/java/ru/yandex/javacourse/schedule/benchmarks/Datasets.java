@@ -0,0 +1,61 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import ru.yandex.javacourse.schedule.manager.TaskManager;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
+
+/**
+ * Наборы данных для бенчмарков: у каждой задачи свой непересекающийся 10-минутный слот.
+ */
+final class Datasets {
+    static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final int SUBTASKS_PER_EPIC = 10;
+
+    private Datasets() {
+    }
+
+    static LocalDateTime slot(long index) {
+        return START.plusMinutes(10 * index);
+    }
+
+    /**
+     * Половина size — обычные задачи, вторая половина — подзадачи эпиков по SUBTASKS_PER_EPIC штук.
+     *
+     * @return номер следующего свободного слота
+     */
+    static long fill(TaskManager manager, int size) {
+        long slot = 0;
+        for (int i = 0; i < size / 2; i++) {
+            manager.addNewTask(new Task("Task " + i, "Description " + i, NEW, slot(slot++), Duration.ofMinutes(5)));
+        }
+        int subtasks = size - size / 2;
+        for (int i = 0; i < subtasks; i += SUBTASKS_PER_EPIC) {
+            int epicId = manager.addNewEpic(new Epic("Epic " + i, "Description " + i));
+            for (int j = i; j < Math.min(subtasks, i + SUBTASKS_PER_EPIC); j++) {
+                manager.addNewSubtask(new Subtask("Subtask " + j, "Description " + j, NEW, slot(slot++), Duration.ofMinutes(5), epicId));
+            }
+        }
+        return slot;
+    }
+
+    static void view(TaskManager manager, int count) {
+        for (Task task : manager.getTasks()) {
+            if (count-- <= 0) {
+                return;
+            }
+            manager.getTask(task.getId());
+        }
+        for (Subtask subtask : manager.getSubtasks()) {
+            if (count-- <= 0) {
+                return;
+            }
+            manager.getSubtask(subtask.getId());
+        }
+    }
+}
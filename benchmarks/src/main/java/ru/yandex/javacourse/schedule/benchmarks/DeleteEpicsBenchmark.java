@@ -0,0 +1,35 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.javacourse.schedule.manager.InMemoryTaskManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Удаление всех эпиков; менеджер заново заполняется перед каждым вызовом.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DeleteEpicsBenchmark {
+    @Param({"1000", "10000"})
+    public int size;
+
+    private InMemoryTaskManager manager;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        Datasets.fill(manager, size);
+        Datasets.view(manager, size);
+    }
+
+    @Benchmark
+    public InMemoryTaskManager deleteEpics() {
+        manager.deleteEpics();
+        return manager;
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.javacourse.schedule.manager.FileBackedTaskManager;
+import ru.yandex.javacourse.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacourse.schedule.manager.JournalConfig;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
+
+/**
+ * Загрузка снимка из size задач и стоимость одной записи (полная перезапись снимка или запись в журнал).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBackedTaskManagerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Path dir;
+    private Path csv;
+    private Path binary;
+    private FileBackedTaskManager csvManager;
+    private FileBackedTaskManager journalManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("kanban-bench");
+        csv = dir.resolve("tasks.csv");
+        binary = dir.resolve("tasks.bin");
+        FileBackedTaskManager source = new FileBackedTaskManager(csv.toString(), JournalConfig.defaults());
+        Datasets.fill(source, size);
+        source.compact();
+        source.close();
+        FileBackedTaskManager.convertToBinary(csv.toString(), binary.toString());
+
+        csvManager = new FileBackedTaskManager(csv.toString());
+        journalManager = new FileBackedTaskManager(dir.resolve("journal.csv").toString(), JournalConfig.defaults());
+        Datasets.fill(journalManager, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journalManager.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public InMemoryTaskManager loadCsv() {
+        return new FileBackedTaskManager(csv.toString());
+    }
+
+    @Benchmark
+    public InMemoryTaskManager loadBinary() {
+        return new FileBackedTaskManager(binary.toString());
+    }
+
+    @Benchmark
+    public int saveSnapshot() {
+        int id = csvManager.addNewTask(new Task("Bench", "Description", NEW));
+        csvManager.deleteTask(id);
+        return id;
+    }
+
+    @Benchmark
+    public int appendJournal() {
+        int id = journalManager.addNewTask(new Task("Bench", "Description", NEW));
+        journalManager.deleteTask(id);
+        return id;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.javacourse.schedule.http.handlers.util.DurationAdapter;
+import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
+import ru.yandex.javacourse.schedule.http.handlers.util.IntSetAdapter;
+import ru.yandex.javacourse.schedule.http.handlers.util.LocalDateTimeAdapter;
+import ru.yandex.javacourse.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.util.IntSet;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов GET /tasks, /subtasks и /epics: общий Gson обработчиков с TaskAdapter (codec=adapters)
+ * против рефлективного разбора задач (codec=reflective).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GsonBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"reflective", "adapters"})
+    public String codec;
+
+    private Gson gson;
+    private InMemoryTaskManager manager;
+    private String tasksJson;
+    private String subtasksJson;
+    private String epicsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gson = "adapters".equals(codec) ? GsonFactory.shared() : reflective();
+        manager = new InMemoryTaskManager();
+        Datasets.fill(manager, size);
+        tasksJson = gson.toJson(manager.getTasks());
+        subtasksJson = gson.toJson(manager.getSubtasks());
+        epicsJson = gson.toJson(manager.getEpics());
+    }
+
+    @Benchmark
+    public String serializeTasks() {
+        return gson.toJson(manager.getTasks());
+    }
+
+    @Benchmark
+    public String serializeSubtasks() {
+        return gson.toJson(manager.getSubtasks());
+    }
+
+    @Benchmark
+    public String serializeEpics() {
+        return gson.toJson(manager.getEpics());
+    }
+
+    @Benchmark
+    public Task[] parseTasks() {
+        return gson.fromJson(tasksJson, Task[].class);
+    }
+
+    @Benchmark
+    public Subtask[] parseSubtasks() {
+        return gson.fromJson(subtasksJson, Subtask[].class);
+    }
+
+    @Benchmark
+    public Epic[] parseEpics() {
+        return gson.fromJson(epicsJson, Epic[].class);
+    }
+
+    // настройка GsonFactory до появления TaskAdapter: задачи разбираются рефлексией
+    private static Gson reflective() {
+        return new GsonBuilder().registerTypeAdapter(Duration.class, new DurationAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(IntSet.class, new IntSetAdapter()).create();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import ru.yandex.javacourse.schedule.manager.ConcurrentTaskManager;
+import ru.yandex.javacourse.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.util.IntMap;
+import ru.yandex.javacourse.schedule.util.IntSet;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
+
+/**
+ * Сколько кучи занимают хранилища: HashMap&lt;Integer, Task&gt; против IntMap, ArrayList&lt;Integer&gt; против IntSet,
+ * а также целиком заполненные InMemoryTaskManager и ConcurrentTaskManager.
+ * Сами задачи создаются заранее и общие для всех вариантов, поэтому в цифры попадают только структуры.
+ * Параметры (key=value): size — число записей (по умолчанию 1000000).
+ * Запуск: java -cp benchmarks/target/benchmarks.jar ru.yandex.javacourse.schedule.benchmarks.HeapFootprint size=100000
+ * Разница в выделениях при работе видна и в JMH: java -jar benchmarks.jar TaskManagerBenchmark -prof gc
+ */
+public class HeapFootprint {
+    public static void main(String[] args) {
+        int size = 1_000_000;
+        for (String arg : args) {
+            if (arg.startsWith("size=")) {
+                size = Integer.parseInt(arg.substring("size=".length()));
+            }
+        }
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            tasks.add(new Task(i, "Task " + i, "Description", NEW));
+        }
+
+        System.out.printf("%-32s %12s %10s%n", "структура", "байт", "на запись");
+        print("HashMap<Integer, Task>", size, measure(() -> {
+            Map<Integer, Task> map = new HashMap<>();
+            tasks.forEach(task -> map.put(task.getId(), task));
+            return map;
+        }));
+        print("IntMap<Task>", size, measure(() -> {
+            IntMap<Task> map = new IntMap<>();
+            tasks.forEach(task -> map.put(task.getId(), task));
+            return map;
+        }));
+        print("ArrayList<Integer>", size, measure(() -> {
+            List<Integer> ids = new ArrayList<>();
+            tasks.forEach(task -> ids.add(task.getId()));
+            return ids;
+        }));
+        print("IntSet", size, measure(() -> {
+            IntSet ids = new IntSet();
+            tasks.forEach(task -> ids.add(task.getId()));
+            return ids;
+        }));
+        // менеджеры создают свои задачи, поэтому здесь считается всё вместе с ними
+        final int managerSize = size;
+        print("InMemoryTaskManager", size, measure(() -> {
+            InMemoryTaskManager manager = new InMemoryTaskManager();
+            Datasets.fill(manager, managerSize);
+            return manager;
+        }));
+        print("ConcurrentTaskManager", size, measure(() -> {
+            ConcurrentTaskManager manager = new ConcurrentTaskManager();
+            Datasets.fill(manager, managerSize);
+            return manager;
+        }));
+    }
+
+    private static long measure(Supplier<Object> factory) {
+        long before = usedHeap();
+        Object retained = factory.get();
+        long after = usedHeap();
+        // структура должна дожить до замера
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static void print(String name, int size, long bytes) {
+        System.out.printf("%-32s %12d %10.1f%n", name, bytes, (double) bytes / size);
+    }
+}
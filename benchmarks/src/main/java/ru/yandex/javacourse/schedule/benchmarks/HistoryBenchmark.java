@@ -0,0 +1,55 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.javacourse.schedule.manager.ArrayHistoryManager;
+import ru.yandex.javacourse.schedule.manager.HistoryManager;
+import ru.yandex.javacourse.schedule.manager.InMemoryHistoryManager;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.util.concurrent.TimeUnit;
+
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
+
+/**
+ * Запись просмотра в историю: узлы связного списка (linked) против массивов с индексами (array).
+ * Просматриваются ids разных задач при истории на capacity записей; при ids больше capacity каждая
+ * запись вытесняет самую давнюю. Выделения памяти видны с профилировщиком: -prof gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+    @Param({"linked", "array"})
+    public String type;
+
+    @Param({"1000"})
+    public int capacity;
+
+    @Param({"500", "10000"})
+    public int ids;
+
+    private HistoryManager history;
+    private Task[] tasks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        history = "array".equals(type) ? new ArrayHistoryManager(capacity) : new InMemoryHistoryManager(capacity);
+        tasks = new Task[ids];
+        for (int i = 0; i < ids; i++) {
+            tasks[i] = new Task(i + 1, "Task " + i, "Description", NEW);
+            history.addTask(tasks[i]);
+        }
+    }
+
+    @Benchmark
+    public HistoryManager addTask() {
+        // шаг взаимно прост с числом задач, так что обход не совпадает с порядком в истории
+        next = (next + 7919) % ids;
+        history.addTask(tasks[next]);
+        return history;
+    }
+}
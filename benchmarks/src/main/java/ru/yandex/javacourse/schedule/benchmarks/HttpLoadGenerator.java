@@ -0,0 +1,292 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import ru.yandex.javacourse.schedule.http.HttpServerConfig;
+import ru.yandex.javacourse.schedule.http.HttpTaskServer;
+import ru.yandex.javacourse.schedule.manager.*;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест HttpTaskServer со смешанной нагрузкой на /tasks, /epics, /subtasks, /history и /prioritized.
+ * <p>
+ * Параметры (key=value):
+ * <ul>
+ *     <li>mode — closed (connections потоков шлют запросы друг за другом) или open (rate запросов в секунду
+ *     по расписанию; задержка считается от запланированного момента, поэтому очередь на сервере не скрывается)</li>
+ *     <li>rate, connections, duration (секунды), warmup (секунды), size (задач в менеджере)</li>
+ *     <li>manager — memory, concurrent, file или journal; executor — dispatcher, pool или virtual</li>
+ *     <li>url — адрес уже запущенного сервера; если не задан, сервер поднимается в этом же процессе на port</li>
+ * </ul>
+ */
+public class HttpLoadGenerator {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Operation> operations;
+    private final int totalWeight;
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final int[] taskIds;
+    private final int[] subtaskIds;
+    private final int epicId;
+    private volatile boolean recording;
+
+    HttpLoadGenerator(HttpClient client, String baseUrl, int[] taskIds, int[] subtaskIds, int epicId) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.taskIds = taskIds;
+        this.subtaskIds = subtaskIds;
+        this.epicId = epicId;
+        this.operations = List.of(
+                new Operation("GET /tasks/{id}", 25, r -> get("/tasks/" + pick(r, taskIds))),
+                new Operation("GET /subtasks/{id}", 15, r -> get("/subtasks/" + pick(r, subtaskIds))),
+                new Operation("GET /epics/{id}/subtasks", 5, r -> get("/epics/" + epicId + "/subtasks")),
+                new Operation("GET /tasks", 5, r -> get("/tasks")),
+                new Operation("GET /epics", 5, r -> get("/epics")),
+                new Operation("GET /history", 15, r -> get("/history")),
+                new Operation("GET /prioritized", 10, r -> get("/prioritized")),
+                new Operation("POST /tasks", 15, r -> post("/tasks", "{\"name\":\"Load\",\"description\":\"Load test\",\"status\":\"NEW\"}")),
+                new Operation("POST /subtasks", 5, r -> post("/subtasks",
+                        "{\"name\":\"Load\",\"description\":\"Load test\",\"status\":\"NEW\",\"epicId\":" + epicId + "}")));
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.out.println("Параметры задаются как key=value, см. описание класса HttpLoadGenerator");
+                return;
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String mode = options.getOrDefault("mode", "closed");
+        int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "16"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        int size = Integer.parseInt(options.getOrDefault("size", "10000"));
+        int port = Integer.parseInt(options.getOrDefault("port", "8090"));
+        String url = options.get("url");
+
+        HttpTaskServer server = null;
+        Path dir = null;
+        TaskManager manager;
+        if (url == null) {
+            String managerType = options.getOrDefault("manager", "concurrent");
+            dir = Files.createTempDirectory("kanban-load");
+            manager = createManager(managerType, dir);
+            HttpServerConfig.ExecutorType executor = HttpServerConfig.ExecutorType.valueOf(options.getOrDefault("executor", "pool").toUpperCase());
+            if (!(manager instanceof ConcurrentTaskManager) && executor != HttpServerConfig.ExecutorType.DISPATCHER) {
+                System.out.println("Менеджер " + managerType + " не потокобезопасен, запросы обслуживает поток-диспетчер");
+                executor = HttpServerConfig.ExecutorType.DISPATCHER;
+            }
+            server = new HttpTaskServer(manager, new HttpServerConfig(port, 1024, executor, connections, 5));
+            server.start();
+            url = "http://localhost:" + port;
+            System.out.printf("Сервер: %s, менеджер %s, исполнитель %s%n", url, managerType, executor);
+        } else {
+            manager = null;
+        }
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        HttpLoadGenerator generator = manager != null ? prepare(client, url, manager, size) : new HttpLoadGenerator(client, url, new int[]{1}, new int[]{1}, 1);
+        try {
+            System.out.printf("Режим %s, прогрев %d с, замер %d с%n", mode, warmup, duration);
+            if ("open".equals(mode)) {
+                generator.runOpenLoop(rate, warmup + duration, warmup, connections * 64);
+            } else {
+                generator.runClosedLoop(connections, warmup + duration, warmup);
+            }
+            generator.report(duration);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            if (manager instanceof FileBackedTaskManager fileManager) {
+                fileManager.close();
+            }
+            if (dir != null) {
+                try (var files = Files.list(dir)) {
+                    for (Path file : files.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(dir);
+            }
+            System.exit(0);
+        }
+    }
+
+    private static TaskManager createManager(String type, Path dir) {
+        switch (type) {
+            case "memory":
+                return Managers.getForServer(false);
+            case "concurrent":
+                return Managers.getForServer(true);
+            case "file":
+                return Managers.loadFromFile(dir.resolve("tasks.csv").toString());
+            case "journal":
+                return Managers.loadFromJournal(dir.resolve("tasks.csv").toString());
+            default:
+                throw new IllegalArgumentException("Неизвестный менеджер: " + type);
+        }
+    }
+
+    private static HttpLoadGenerator prepare(HttpClient client, String url, TaskManager manager, int size) {
+        Datasets.fill(manager, size);
+        int[] taskIds = manager.getTasks().stream().mapToInt(Task::getId).toArray();
+        int[] subtaskIds = manager.getSubtasks().stream().mapToInt(Subtask::getId).toArray();
+        int epicId = manager.getEpics().isEmpty() ? manager.addNewEpic(new Epic("Load", "Load"))
+                : manager.getEpics().get(0).getId();
+        return new HttpLoadGenerator(client, url, taskIds, subtaskIds, epicId);
+    }
+
+    void runClosedLoop(int connections, int seconds, int warmupSeconds) throws InterruptedException {
+        long started = System.nanoTime();
+        long end = started + TimeUnit.SECONDS.toNanos(seconds);
+        long recordFrom = started + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            Thread worker = new Thread(() -> {
+                Random random = new Random();
+                while (System.nanoTime() < end) {
+                    recording = System.nanoTime() >= recordFrom;
+                    Operation operation = next(random);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(operation.request(random), HttpResponse.BodyHandlers.discarding());
+                        record(operation, start, response.statusCode());
+                    } catch (IOException e) {
+                        record(operation, start, -1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }, "load-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    void runOpenLoop(int rate, int seconds, int warmupSeconds, int maxInFlight) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long started = System.nanoTime();
+        long end = started + TimeUnit.SECONDS.toNanos(seconds);
+        long recordFrom = started + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Random random = new Random();
+        for (long intended = started; intended < end; intended += interval) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            recording = intended >= recordFrom;
+            if (!inFlight.tryAcquire()) {
+                if (recording) {
+                    dropped.incrementAndGet();
+                }
+                continue;
+            }
+            Operation operation = next(random);
+            long start = intended;
+            client.sendAsync(operation.request(random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        record(operation, start, error == null ? response.statusCode() : -1);
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(maxInFlight);
+    }
+
+    void report(int seconds) {
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        System.out.printf("%-26s %10s %9s %9s %9s %9s %9s%n", "операция", "запросов", "p50 мкс", "p99 мкс", "p999 мкс", "max мкс", "rps");
+        for (Operation operation : operations) {
+            Histogram histogram = histograms.get(operation.name());
+            if (histogram == null) {
+                continue;
+            }
+            total.add(histogram);
+            print(operation.name(), histogram, seconds);
+        }
+        print("всего", total, seconds);
+        System.out.printf("ошибок: %d, не отправлено из-за переполнения: %d%n", errors.get(), dropped.get());
+    }
+
+    private static void print(String name, Histogram histogram, int seconds) {
+        System.out.printf("%-26s %10d %9d %9d %9d %9d %9.0f%n", name, histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9), histogram.getMaxValue(), histogram.getTotalCount() / (double) seconds);
+    }
+
+    private void record(Operation operation, long startNanos, int status) {
+        if (!recording) {
+            return;
+        }
+        if (status < 200 || status >= 300) {
+            errors.incrementAndGet();
+        }
+        long micros = Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        histograms.computeIfAbsent(operation.name(), name -> new ConcurrentHistogram(MAX_LATENCY_MICROS, 3)).recordValue(micros);
+    }
+
+    private Operation next(Random random) {
+        int value = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            value -= operation.weight();
+            if (value < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private static int pick(Random random, int[] ids) {
+        return ids.length == 0 ? 1 : ids[random.nextInt(ids.length)];
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private record Operation(String name, int weight, RequestFactory factory) {
+        HttpRequest request(Random random) {
+            return factory.create(random);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpRequest create(Random random);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.javacourse.schedule.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.javacourse.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
+
+/**
+ * Горячие пути InMemoryTaskManager на заполненном менеджере из size задач и подзадач.
+ * Добавление измеряется вместе с удалением, чтобы размер менеджера не рос от итерации к итерации.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskManagerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private InMemoryTaskManager manager;
+    private int epicId;
+    private long nextSlot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        manager = new InMemoryTaskManager();
+        nextSlot = Datasets.fill(manager, size);
+        epicId = manager.addNewEpic(new Epic("Bench epic", "Description"));
+        Datasets.view(manager, size);
+    }
+
+    @Benchmark
+    public int addNewTimedTask() {
+        // слот в середине расписания занят, поэтому новые задачи идут после всех существующих
+        Task task = new Task("Bench", "Description", NEW, Datasets.slot(nextSlot++), Duration.ofMinutes(5));
+        int id = manager.addNewTask(task);
+        manager.deleteTask(id);
+        return id;
+    }
+
+    @Benchmark
+    public int addNewTimedSubtask() {
+        Subtask subtask = new Subtask("Bench", "Description", NEW, Datasets.slot(nextSlot++), Duration.ofMinutes(5), epicId);
+        int id = manager.addNewSubtask(subtask);
+        manager.deleteSubtask(id);
+        return id;
+    }
+
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return manager.getHistory();
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.javacourse.schedule.exceptions;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.javacourse.schedule.exceptions;
+
+public class ManagerLoadException extends RuntimeException {
+    public ManagerLoadException(String message) {
+        super(message);
+    }
+
+    public ManagerLoadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.javacourse.schedule.exceptions;
+
+public class ManagerSaveException extends RuntimeException {
+    public ManagerSaveException(String message) {
+        super(message);
+    }
+
+    public ManagerSaveException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
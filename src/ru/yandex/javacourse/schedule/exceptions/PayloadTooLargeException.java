@@ -0,0 +1,7 @@
+package ru.yandex.javacourse.schedule.exceptions;
+
+public class PayloadTooLargeException extends RuntimeException {
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
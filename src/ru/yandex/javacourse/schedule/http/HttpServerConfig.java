@@ -0,0 +1,110 @@
+package ru.yandex.javacourse.schedule.http;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Настройки HTTP-сервера: порт, backlog, режим исполнения обработчиков, время на завершение запросов при остановке
+ * и наибольший размер тела запроса в байтах. Значения по умолчанию читаются из системных свойств server.port,
+ * server.backlog, server.executor, server.threads, server.stopDelay и server.maxBodySize.
+ */
+public class HttpServerConfig {
+    public static final int DEFAULT_PORT = 8080;
+    public static final long DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+
+    private final int port;
+    private final int backlog;
+    private final ExecutorType executorType;
+    private final int threads;
+    private final int stopDelaySeconds;
+    private final long maxBodySize;
+
+    public HttpServerConfig(int port, int backlog, ExecutorType executorType, int threads, int stopDelaySeconds) {
+        this(port, backlog, executorType, threads, stopDelaySeconds, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    public HttpServerConfig(int port, int backlog, ExecutorType executorType, int threads, int stopDelaySeconds, long maxBodySize) {
+        if (executorType == ExecutorType.POOL && threads <= 0) {
+            throw new IllegalArgumentException("Размер пула должен быть положительным: " + threads);
+        }
+        if (maxBodySize <= 0) {
+            throw new IllegalArgumentException("Размер тела запроса должен быть положительным: " + maxBodySize);
+        }
+        this.port = port;
+        this.backlog = backlog;
+        this.executorType = executorType;
+        this.threads = threads;
+        this.stopDelaySeconds = stopDelaySeconds;
+        this.maxBodySize = maxBodySize;
+    }
+
+    public static HttpServerConfig defaults() {
+        return new HttpServerConfig(DEFAULT_PORT, 0, ExecutorType.DISPATCHER, 0, 1);
+    }
+
+    public static HttpServerConfig fromSystemProperties() {
+        int port = Integer.getInteger("server.port", DEFAULT_PORT);
+        int backlog = Integer.getInteger("server.backlog", 0);
+        ExecutorType type = ExecutorType.valueOf(System.getProperty("server.executor", "dispatcher").toUpperCase());
+        int threads = Integer.getInteger("server.threads", Runtime.getRuntime().availableProcessors());
+        int stopDelay = Integer.getInteger("server.stopDelay", 1);
+        long maxBodySize = Long.getLong("server.maxBodySize", DEFAULT_MAX_BODY_SIZE);
+        return new HttpServerConfig(port, backlog, type, threads, stopDelay, maxBodySize);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public ExecutorType getExecutorType() {
+        return executorType;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getStopDelaySeconds() {
+        return stopDelaySeconds;
+    }
+
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * @return пул для обработчиков или null, если запросы обслуживает поток-диспетчер HttpServer
+     */
+    ExecutorService createExecutor() {
+        switch (executorType) {
+            case DISPATCHER:
+                return null;
+            case POOL:
+                return Executors.newFixedThreadPool(threads);
+            case VIRTUAL:
+                return newVirtualThreadExecutor();
+            default:
+                throw new IllegalStateException("Неизвестный режим: " + executorType);
+        }
+    }
+
+    // виртуальные потоки есть только начиная с Java 21, на более старых JDK используем обычный пул
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Виртуальные потоки недоступны, используется пул из " + threads + " потоков");
+            return Executors.newFixedThreadPool(Math.max(threads, 1));
+        }
+    }
+
+    public enum ExecutorType {
+        DISPATCHER, POOL, VIRTUAL
+    }
+}
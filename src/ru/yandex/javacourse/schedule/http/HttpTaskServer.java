@@ -7,36 +7,72 @@ import ru.yandex.javacourse.schedule.manager.TaskManager;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class HttpTaskServer {
-    private static final int PORT = 8080;
     private final HttpServer server;
     private final TaskManager manager;
+    private final HttpServerConfig config;
+    private final ExecutorService executor;
+    private final InFlightFilter inFlight = new InFlightFilter();
 
     public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, HttpServerConfig.defaults());
+    }
+
+    public HttpTaskServer(TaskManager manager, HttpServerConfig config) throws IOException {
         this.manager = manager;
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        this.config = config;
+        server = HttpServer.create(new InetSocketAddress(config.getPort()), config.getBacklog());
 
-        server.createContext("/tasks", new TaskHandler(manager));
-        server.createContext("/epics", new EpicHandler(manager));
-        server.createContext("/subtasks", new SubtaskHandler(manager));
-        server.createContext("/history", new HistoryHandler(manager));
-        server.createContext("/prioritized", new PrioritizedHandler(manager));
+        server.createContext("/tasks", new TaskHandler(manager, config.getMaxBodySize())).getFilters().add(inFlight);
+        server.createContext("/epics", new EpicHandler(manager, config.getMaxBodySize())).getFilters().add(inFlight);
+        server.createContext("/subtasks", new SubtaskHandler(manager, config.getMaxBodySize())).getFilters().add(inFlight);
+        server.createContext("/history", new HistoryHandler(manager)).getFilters().add(inFlight);
+        server.createContext("/prioritized", new PrioritizedHandler(manager)).getFilters().add(inFlight);
+        server.createContext("/changes", new ChangesHandler(manager)).getFilters().add(inFlight);
+
+        executor = config.createExecutor();
+        server.setExecutor(executor);
     }
 
     public static void main(String[] args) throws IOException {
-        TaskManager manager = Managers.getDefault();
-        HttpTaskServer server = new HttpTaskServer(manager);
+        HttpServerConfig config = HttpServerConfig.fromSystemProperties();
+        // при нескольких потоках-обработчиках нужен потокобезопасный менеджер
+        TaskManager manager = Managers.getForServer(config.getExecutorType() != HttpServerConfig.ExecutorType.DISPATCHER);
+        HttpTaskServer server = new HttpTaskServer(manager, config);
         server.start();
-        System.out.println("Server started on port " + PORT);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        System.out.println("Server started on port " + config.getPort() + " (" + config.getExecutorType() + ")");
     }
 
     public void start() {
         server.start();
     }
 
+    /**
+     * Отклоняет новые запросы с кодом 503 и ждёт завершения текущих не дольше stopDelay секунд, затем закрывает соединения.
+     */
     public void stop() {
+        try {
+            inFlight.awaitIdle(config.getStopDelaySeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // текущие запросы уже завершились или время вышло, поэтому ждать ещё раз незачем
         server.stop(0);
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(config.getStopDelaySeconds(), TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 }
-
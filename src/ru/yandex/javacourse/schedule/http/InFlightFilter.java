@@ -0,0 +1,62 @@
+package ru.yandex.javacourse.schedule.http;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Считает обрабатываемые запросы, чтобы остановка сервера ждала только их, а не весь stopDelay:
+ * HttpServer.stop(delay) в JDK 17 выжидает задержку целиком даже без открытых обменов.
+ * После начала остановки новые запросы получают 503.
+ */
+class InFlightFilter extends Filter {
+    private int active;
+    private boolean stopping;
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        synchronized (this) {
+            if (stopping) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            active++;
+        }
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            synchronized (this) {
+                active--;
+                if (active == 0) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Учёт обрабатываемых запросов";
+    }
+
+    /**
+     * Перестаёт принимать запросы и ждёт завершения текущих.
+     *
+     * @return true, если все запросы завершились до истечения времени
+     */
+    synchronized boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        stopping = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (active > 0) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, left);
+        }
+        return true;
+    }
+}
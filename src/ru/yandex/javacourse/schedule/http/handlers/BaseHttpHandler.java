@@ -1,16 +1,54 @@
 package ru.yandex.javacourse.schedule.http.handlers;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import ru.yandex.javacourse.schedule.exceptions.BadRequestException;
 import ru.yandex.javacourse.schedule.exceptions.NotFoundException;
+import ru.yandex.javacourse.schedule.exceptions.PayloadTooLargeException;
+import ru.yandex.javacourse.schedule.http.HttpServerConfig;
+import ru.yandex.javacourse.schedule.manager.PartitionedHistoryManager;
 
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 public abstract class BaseHttpHandler implements HttpHandler {
+    public static final String CLIENT_HEADER = "X-Client-Id";
+    public static final String CLIENT_PARAM = "client";
+    private static final int MAX_CLIENT_LENGTH = 128;
+
+    private final long maxBodySize;
+
+    protected BaseHttpHandler() {
+        this(HttpServerConfig.DEFAULT_MAX_BODY_SIZE);
+    }
+
+    protected BaseHttpHandler(long maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
     @Override
     public void handle(HttpExchange h) throws IOException {
         try {
+            String client = clientKey(h);
+            if (client.length() > MAX_CLIENT_LENGTH) {
+                sendBadRequest(h);
+                return;
+            }
+            // история просмотров ведётся отдельно для каждого клиента
+            PartitionedHistoryManager.setCurrentClient(client);
             String request = h.getRequestMethod();
             switch (request) {
                 case "GET":
@@ -26,27 +64,120 @@ public abstract class BaseHttpHandler implements HttpHandler {
                     h.sendResponseHeaders(405, -1);
             }
         } catch (NotFoundException e) {
-            sendNotFound(h);
+            if (responseNotStarted(h)) {
+                sendNotFound(h);
+            }
+        } catch (PayloadTooLargeException e) {
+            if (responseNotStarted(h)) {
+                sendPayloadTooLarge(h);
+            }
+        } catch (BadRequestException | JsonParseException e) {
+            if (responseNotStarted(h)) {
+                sendBadRequest(h);
+            }
         } catch (IllegalStateException e) {
-            sendHasInteractions(h);
+            if (responseNotStarted(h)) {
+                sendHasInteractions(h);
+            }
         } catch (Exception e) {
-            sendInternalError(h);
+            // если ответ уже начал передаваться потоком, код не поменять — соединение просто закрывается
+            if (responseNotStarted(h)) {
+                sendInternalError(h);
+            }
         } finally {
+            PartitionedHistoryManager.setCurrentClient(null);
             h.close();
         }
     }
 
-    protected void sendText(HttpExchange h, String text) throws IOException {
-        byte[] resp = text.getBytes(StandardCharsets.UTF_8);
+    /**
+     * Сериализует ответ прямо в тело: без промежуточной строки и массива байт, с chunked-передачей.
+     */
+    protected void sendJson(HttpExchange h, Gson gson, Object value) throws IOException {
         h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        h.sendResponseHeaders(200, resp.length);
-        h.getResponseBody().write(resp);
+        h.sendResponseHeaders(200, 0);
+        JsonWriter writer = gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(h.getResponseBody(), StandardCharsets.UTF_8)));
+        gson.toJson(value, value.getClass(), writer);
+        writer.flush();
+    }
+
+    /**
+     * Ставит заголовок ETag и, если он совпал с If-None-Match, отвечает 304 без тела.
+     *
+     * @return true, если ответ уже отправлен и сериализовать ничего не нужно
+     */
+    protected boolean notModified(HttpExchange h, String etag) throws IOException {
+        h.getResponseHeaders().set("ETag", etag);
+        String ifNoneMatch = h.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                h.sendResponseHeaders(304, -1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Версии считаются заново при каждом запуске, поэтому к ним добавляется эпоха менеджера:
+     * ETag прежнего запуска не совпадёт с новым, даже если номер версии тот же.
+     */
+    protected static String etag(long epoch, long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    /**
+     * Разбирает тело запроса прямо из потока; тело длиннее maxBodySize байт не дочитывается и даёт ответ 413.
+     */
+    protected <T> T readJson(HttpExchange h, Gson gson, Class<T> type) throws IOException {
+        String length = h.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && declaredLength(length) > maxBodySize) {
+            throw new PayloadTooLargeException("Тело запроса длиннее " + maxBodySize + " байт");
+        }
+        InputStream body = new LimitedInputStream(h.getRequestBody(), maxBodySize);
+        try {
+            // Gson сам читает поток через JsonReader и проверяет, что после объекта ничего нет
+            T value = gson.fromJson(new InputStreamReader(body, StandardCharsets.UTF_8), type);
+            if (value == null) {
+                throw new JsonSyntaxException("Пустое тело запроса");
+            }
+            return value;
+        } catch (JsonParseException e) {
+            // недочитанное тело заставит сервер закрыть соединение, которое клиент уже мог занять следующим запросом
+            body.transferTo(OutputStream.nullOutputStream());
+            throw e;
+        }
+    }
+
+    private static long declaredLength(String length) {
+        try {
+            return Long.parseLong(length.trim());
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException("Некорректный Content-Length: " + length, e);
+        }
+    }
+
+    protected void sendBadRequest(HttpExchange h) throws IOException {
+        h.sendResponseHeaders(400, -1);
     }
 
     protected void sendNotFound(HttpExchange h) throws IOException {
         h.sendResponseHeaders(404, -1);
     }
 
+    // тело не дочитано, поэтому соединение не переиспользуется
+    protected void sendPayloadTooLarge(HttpExchange h) throws IOException {
+        h.getResponseHeaders().set("Connection", "close");
+        h.sendResponseHeaders(413, -1);
+    }
+
     protected void sendHasInteractions(HttpExchange h) throws IOException {
         h.sendResponseHeaders(406, -1);
     }
@@ -55,10 +186,79 @@ public abstract class BaseHttpHandler implements HttpHandler {
         h.sendResponseHeaders(500, -1);
     }
 
+    /**
+     * @throws BadRequestException если в запросе испорченная %-последовательность, например %zz
+     */
+    protected Map<String, String> queryParams(HttpExchange h) {
+        Map<String, String> params = new HashMap<>();
+        String query = h.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Некорректный параметр запроса: " + pair, e);
+            }
+        }
+        return params;
+    }
+
+    private boolean responseNotStarted(HttpExchange h) {
+        return h.getResponseCode() == -1;
+    }
+
+    private String clientKey(HttpExchange h) {
+        String client = h.getRequestHeaders().getFirst(CLIENT_HEADER);
+        if (client == null) {
+            client = queryParams(h).get(CLIENT_PARAM);
+        }
+        return client == null ? PartitionedHistoryManager.DEFAULT_CLIENT : client;
+    }
+
     protected abstract void handleGet(HttpExchange h) throws IOException;
 
     protected abstract void handlePost(HttpExchange h) throws IOException;
 
     protected abstract void handleDelete(HttpExchange h) throws IOException;
-}
 
+    // для chunked-запросов длина заранее неизвестна, поэтому предел проверяется по мере чтения
+    private static class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long read;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > limit) {
+                throw new PayloadTooLargeException("Тело запроса длиннее " + limit + " байт");
+            }
+        }
+    }
+}
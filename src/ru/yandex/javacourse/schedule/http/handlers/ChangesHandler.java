@@ -0,0 +1,52 @@
+package ru.yandex.javacourse.schedule.http.handlers;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
+import ru.yandex.javacourse.schedule.manager.TaskManager;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class ChangesHandler extends BaseHttpHandler {
+    private final TaskManager manager;
+    private final Gson gson = GsonFactory.shared();
+
+    public ChangesHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * GET /changes?epoch=7&since=42 — изменения после версии 42 эпохи 7, текущие эпоха и версия для следующего запроса.
+     * При resync=true (в том числе без epoch или при смене эпохи после перезапуска) клиент перечитывает коллекции
+     * целиком и продолжает с возвращённых эпохи и версии.
+     */
+    @Override
+    protected void handleGet(HttpExchange h) throws IOException {
+        Map<String, String> params = queryParams(h);
+        long epoch;
+        long since;
+        try {
+            epoch = Long.parseLong(params.getOrDefault("epoch", "0"));
+            since = Long.parseLong(params.getOrDefault("since", "0"));
+        } catch (NumberFormatException e) {
+            sendBadRequest(h);
+            return;
+        }
+        if (since < 0) {
+            sendBadRequest(h);
+            return;
+        }
+        sendJson(h, gson, manager.getChanges(epoch, since));
+    }
+
+    @Override
+    protected void handlePost(HttpExchange h) throws IOException {
+        h.sendResponseHeaders(405, -1);
+    }
+
+    @Override
+    protected void handleDelete(HttpExchange h) throws IOException {
+        h.sendResponseHeaders(405, -1);
+    }
+}
@@ -2,18 +2,26 @@ package ru.yandex.javacourse.schedule.http.handlers;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacourse.schedule.http.HttpServerConfig;
 import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
 import ru.yandex.javacourse.schedule.manager.TaskManager;
 import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 public class EpicHandler extends BaseHttpHandler {
     private final TaskManager manager;
-    private final Gson gson = GsonFactory.create();
+    private final Gson gson = GsonFactory.shared();
 
     public EpicHandler(TaskManager manager) {
+        this(manager, HttpServerConfig.DEFAULT_MAX_BODY_SIZE);
+    }
+
+    public EpicHandler(TaskManager manager, long maxBodySize) {
+        super(maxBodySize);
         this.manager = manager;
     }
 
@@ -32,8 +40,7 @@ public class EpicHandler extends BaseHttpHandler {
     }
 
     protected void handlePost(HttpExchange h) throws IOException {
-        String body = new String(h.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        Epic epic = gson.fromJson(body, Epic.class);
+        Epic epic = readJson(h, gson, Epic.class);
 
         if (epic.getId() == 0) {
             manager.addNewEpic(epic);
@@ -47,19 +54,27 @@ public class EpicHandler extends BaseHttpHandler {
     protected void handleGet(HttpExchange h) throws IOException {
         String[] splitStrings = h.getRequestURI().getPath().split("/");
 
+        // изменения подзадач увеличивают и версию эпиков
+        long version = manager.getVersion(TaskType.epic);
         if (splitStrings.length == 2) {
-            String jsonResponse = gson.toJson(manager.getEpics());
-            sendText(h, jsonResponse);
+            if (!notModified(h, etag(manager.getEpoch(), version))) {
+                sendJson(h, gson, manager.getEpics());
+            }
             return;
         }
         int id = Integer.parseInt(splitStrings[2]);
         if (splitStrings.length == 3) {
             Epic epic = manager.getEpic(id); // если нет — NotFoundException
-            sendText(h, gson.toJson(epic));
+            if (!notModified(h, etag(manager.getEpoch(), version))) {
+                sendJson(h, gson, epic);
+            }
             return;
         }
         if (splitStrings.length == 4 && "subtasks".equals(splitStrings[3])) {
-            sendText(h, gson.toJson(manager.getEpicSubtasks(id)));
+            List<Subtask> subtasks = manager.getEpicSubtasks(id);
+            if (!notModified(h, etag(manager.getEpoch(), version))) {
+                sendJson(h, gson, subtasks);
+            }
         }
     }
 }
@@ -4,21 +4,49 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
 import ru.yandex.javacourse.schedule.manager.TaskManager;
+import ru.yandex.javacourse.schedule.tasks.Task;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 public class HistoryHandler extends BaseHttpHandler {
+    public static final int MAX_PAGE_LIMIT = 1000;
+
     private final TaskManager manager;
-    private final Gson gson = GsonFactory.create();
+    private final Gson gson = GsonFactory.shared();
 
     public HistoryHandler(TaskManager manager) {
         this.manager = manager;
     }
 
+    /**
+     * GET /history?offset=0&limit=100 — страница истории от самой давней записи; limit не больше MAX_PAGE_LIMIT.
+     */
     @Override
     protected void handleGet(HttpExchange h) throws IOException {
-        String json = gson.toJson(manager.getHistory());
-        sendText(h, json);
+        Map<String, String> params = queryParams(h);
+        int offset;
+        int limit;
+        try {
+            offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+            limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(MAX_PAGE_LIMIT)));
+        } catch (NumberFormatException e) {
+            sendBadRequest(h);
+            return;
+        }
+        if (offset < 0 || limit < 0) {
+            sendBadRequest(h);
+            return;
+        }
+        // просмотры не меняют версию менеджера, поэтому к ней добавляется счётчик изменений истории;
+        // оба читаются до страницы, так что при гонке ETag окажется старее ответа, а не новее
+        long version = manager.getVersion();
+        long modCount = manager.getHistoryModCount();
+        List<Task> page = manager.getHistory(offset, Math.min(limit, MAX_PAGE_LIMIT));
+        if (!notModified(h, "\"" + manager.getEpoch() + "-" + version + "-" + modCount + "\"")) {
+            sendJson(h, gson, page);
+        }
     }
 
     @Override
@@ -4,12 +4,13 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
 import ru.yandex.javacourse.schedule.manager.TaskManager;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
 import java.io.IOException;
 
 public class PrioritizedHandler extends BaseHttpHandler {
     private final TaskManager manager;
-    private final Gson gson = GsonFactory.create();
+    private final Gson gson = GsonFactory.shared();
 
     public PrioritizedHandler(TaskManager manager) {
         this.manager = manager;
@@ -17,8 +18,10 @@ public class PrioritizedHandler extends BaseHttpHandler {
 
     @Override
     protected void handleGet(HttpExchange h) throws IOException {
-        String json = gson.toJson(manager.getPrioritizedTasks());
-        sendText(h, json);
+        long version = Math.max(manager.getVersion(TaskType.task), manager.getVersion(TaskType.subTask));
+        if (!notModified(h, etag(manager.getEpoch(), version))) {
+            sendJson(h, gson, manager.getPrioritizedTasks());
+        }
     }
 
     @Override
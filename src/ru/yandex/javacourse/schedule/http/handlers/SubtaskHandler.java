@@ -2,37 +2,47 @@ package ru.yandex.javacourse.schedule.http.handlers;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacourse.schedule.http.HttpServerConfig;
 import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
 import ru.yandex.javacourse.schedule.manager.TaskManager;
 import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 public class SubtaskHandler extends BaseHttpHandler {
     private final TaskManager manager;
-    private final Gson gson = GsonFactory.create();
+    private final Gson gson = GsonFactory.shared();
 
     public SubtaskHandler(TaskManager manager) {
+        this(manager, HttpServerConfig.DEFAULT_MAX_BODY_SIZE);
+    }
+
+    public SubtaskHandler(TaskManager manager, long maxBodySize) {
+        super(maxBodySize);
         this.manager = manager;
     }
 
     @Override
     protected void handleGet(HttpExchange h) throws IOException {
         String[] path = h.getRequestURI().getPath().split("/");
+        long version = manager.getVersion(TaskType.subTask);
         if (path.length == 2) {
-            sendText(h, gson.toJson(manager.getSubtasks()));
+            if (!notModified(h, etag(manager.getEpoch(), version))) {
+                sendJson(h, gson, manager.getSubtasks());
+            }
             return;
         }
         int id = Integer.parseInt(path[2]);
         Subtask subtask = manager.getSubtask(id);
-        sendText(h, gson.toJson(subtask));
+        if (!notModified(h, etag(manager.getEpoch(), version))) {
+            sendJson(h, gson, subtask);
+        }
     }
 
     @Override
     protected void handlePost(HttpExchange h) throws IOException {
-        String body = new String(h.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        Subtask subtask = gson.fromJson(body, Subtask.class);
+        Subtask subtask = readJson(h, gson, Subtask.class);
         if (subtask.getId() == 0) {
             manager.addNewSubtask(subtask);
         } else {
@@ -2,18 +2,24 @@ package ru.yandex.javacourse.schedule.http.handlers;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacourse.schedule.http.HttpServerConfig;
 import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
 import ru.yandex.javacourse.schedule.manager.TaskManager;
 import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 public class TaskHandler extends BaseHttpHandler {
     private final TaskManager manager;
-    private final Gson gson = GsonFactory.create();
+    private final Gson gson = GsonFactory.shared();
 
     public TaskHandler(TaskManager manager) {
+        this(manager, HttpServerConfig.DEFAULT_MAX_BODY_SIZE);
+    }
+
+    public TaskHandler(TaskManager manager, long maxBodySize) {
+        super(maxBodySize);
         this.manager = manager;
     }
 
@@ -31,8 +37,7 @@ public class TaskHandler extends BaseHttpHandler {
     }
 
     protected void handlePost(HttpExchange h) throws IOException {
-        String body = new String(h.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
-        Task task = gson.fromJson(body, Task.class);
+        Task task = readJson(h, gson, Task.class);
 
         if (task.getId() == 0) {
             manager.addNewTask(task);
@@ -45,14 +50,18 @@ public class TaskHandler extends BaseHttpHandler {
     protected void handleGet(HttpExchange h) throws IOException {
         String[] splitStrings = h.getRequestURI().getPath().split("/");
 
+        long version = manager.getVersion(TaskType.task);
         if (splitStrings.length == 2) {
-            String jsonResponse = gson.toJson(manager.getTasks());
-            sendText(h, jsonResponse);
+            if (!notModified(h, etag(manager.getEpoch(), version))) {
+                sendJson(h, gson, manager.getTasks());
+            }
             return;
         }
 
         int id = Integer.parseInt(splitStrings[2]);
-        Task task = manager.getTask(id);
-        sendText(h, gson.toJson(task));
+        Task task = manager.getTask(id); // просмотр попадает в историю и при ответе 304
+        if (!notModified(h, etag(manager.getEpoch(), version))) {
+            sendJson(h, gson, task);
+        }
     }
 }
@@ -2,12 +2,25 @@ package ru.yandex.javacourse.schedule.http.handlers.util;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+import ru.yandex.javacourse.schedule.util.IntSet;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 
 public class GsonFactory {
+    // Gson потокобезопасен, а кэш адаптеров выгоднее держать один на весь сервер
+    private static final Gson SHARED = create();
+
     public static Gson create() {
-        return new GsonBuilder().registerTypeAdapter(Duration.class, new DurationAdapter()).registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter()).create();
+        return new GsonBuilder().registerTypeAdapter(Duration.class, new DurationAdapter()).registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter()).registerTypeAdapter(IntSet.class, new IntSetAdapter())
+                .registerTypeAdapter(Task.class, new TaskAdapter(TaskType.task)).registerTypeAdapter(Epic.class, new TaskAdapter(TaskType.epic)).registerTypeAdapter(Subtask.class, new TaskAdapter(TaskType.subTask)).create();
+    }
+
+    public static Gson shared() {
+        return SHARED;
     }
 }
@@ -0,0 +1,39 @@
+package ru.yandex.javacourse.schedule.http.handlers.util;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.yandex.javacourse.schedule.util.IntSet;
+
+import java.io.IOException;
+
+public class IntSetAdapter extends TypeAdapter<IntSet> {
+    @Override
+    public void write(JsonWriter out, IntSet set) throws IOException {
+        if (set == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int i = 0; i < set.size(); i++) {
+            out.value(set.get(i));
+        }
+        out.endArray();
+    }
+
+    @Override
+    public IntSet read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        IntSet set = new IntSet();
+        in.beginArray();
+        while (in.hasNext()) {
+            set.add(in.nextInt());
+        }
+        in.endArray();
+        return set;
+    }
+}
@@ -0,0 +1,195 @@
+package ru.yandex.javacourse.schedule.http.handlers.util;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Потоковая (де)сериализация задач без рефлексии. Один экземпляр регистрируется на каждый класс:
+ * при чтении создаётся задача этого класса, при записи поля выбираются по фактическому типу объекта.
+ * Служебный флаг нахождения в менеджере в JSON не попадает.
+ */
+public class TaskAdapter extends TypeAdapter<Task> {
+    private static final DurationAdapter DURATION = new DurationAdapter();
+    private static final LocalDateTimeAdapter DATE_TIME = new LocalDateTimeAdapter();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final TaskType target;
+
+    public TaskAdapter(TaskType target) {
+        this.target = target;
+    }
+
+    @Override
+    public void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("id").value(task.getId());
+        out.name("type").value(typeOf(task).name());
+        writeString(out, "name", task.getName());
+        writeString(out, "description", task.getDescription());
+        if (task.getStatus() != null) {
+            out.name("status").value(task.getStatus().name());
+        }
+        if (task.getStartTime() != null) {
+            out.name("startTime");
+            DATE_TIME.write(out, task.getStartTime());
+        }
+        if (task.getDuration() != null) {
+            out.name("duration");
+            DURATION.write(out, task.getDuration());
+        }
+        if (task instanceof Epic epic) {
+            if (epic.getEndTime() != null) {
+                out.name("endTime");
+                DATE_TIME.write(out, epic.getEndTime());
+            }
+            out.name("subtaskIds").beginArray();
+            for (int i = 0; i < epic.getSubtaskCount(); i++) {
+                out.value(epic.getSubtaskId(i));
+            }
+            out.endArray();
+        } else if (task instanceof Subtask subtask) {
+            out.name("epicId").value(subtask.getEpicId());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Task read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int id = 0;
+        String name = null;
+        String description = null;
+        TaskStatus status = null;
+        LocalDateTime startTime = null;
+        Duration duration = null;
+        LocalDateTime endTime = null;
+        int[] subtaskIds = null;
+        int subtaskCount = 0;
+        int epicId = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = nextInt(in);
+                    break;
+                case "name":
+                    name = nextString(in);
+                    break;
+                case "description":
+                    description = nextString(in);
+                    break;
+                case "status":
+                    status = status(nextString(in));
+                    break;
+                case "startTime":
+                    startTime = DATE_TIME.read(in);
+                    break;
+                case "duration":
+                    duration = DURATION.read(in);
+                    break;
+                case "endTime":
+                    endTime = DATE_TIME.read(in);
+                    break;
+                case "subtaskIds":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        break;
+                    }
+                    subtaskIds = new int[8];
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (subtaskCount == subtaskIds.length) {
+                            subtaskIds = Arrays.copyOf(subtaskIds, subtaskCount * 2);
+                        }
+                        subtaskIds[subtaskCount++] = readInt(in);
+                    }
+                    in.endArray();
+                    break;
+                case "epicId":
+                    epicId = nextInt(in);
+                    break;
+                default:
+                    // "type" задаётся классом, под который зарегистрирован адаптер
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        switch (target) {
+            case task:
+                return new Task(id, name, description, status, startTime, duration);
+            case epic:
+                Epic epic = new Epic(id, name, description, status, startTime, duration, endTime);
+                for (int i = 0; i < subtaskCount; i++) {
+                    epic.addSubtaskId(subtaskIds[i]);
+                }
+                return epic;
+            case subTask:
+                return new Subtask(id, name, description, status, startTime, duration, epicId);
+            default:
+                throw new IllegalStateException("Неизвестный тип задачи: " + target);
+        }
+    }
+
+    private static TaskType typeOf(Task task) {
+        return task instanceof Epic ? TaskType.epic : task instanceof Subtask ? TaskType.subTask : TaskType.task;
+    }
+
+    private static void writeString(JsonWriter out, String name, String value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return readInt(in);
+    }
+
+    // JsonReader бросает NumberFormatException на 1.5 или "x"; для клиента это такой же некорректный JSON
+    private static int readInt(JsonReader in) throws IOException {
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException("Ожидалось целое число: " + in.getPath(), e);
+        }
+    }
+
+    private static TaskStatus status(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (TaskStatus status : STATUSES) {
+            if (status.name().equals(value)) {
+                return status;
+            }
+        }
+        throw new JsonSyntaxException("Неизвестный статус задачи: " + value);
+    }
+}
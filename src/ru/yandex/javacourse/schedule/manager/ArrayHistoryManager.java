@@ -0,0 +1,180 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.util.IntIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * История на массивах вместо узлов списка: ячейки связаны индексами prev/next, освободившиеся ячейки
+ * уходят в список свободных, а id задачи ищется в IntIntMap. После того как массивы выросли до рабочего
+ * размера, запись просмотра ничего не выделяет.
+ */
+public class ArrayHistoryManager implements HistoryManager {
+    private static final int NIL = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maxSize;
+    private final IntIntMap slotsById = new IntIntMap();
+    private Task[] tasks;
+    private int[] ids;
+    private int[] prev;
+    private int[] next;
+    private int head = NIL;
+    private int tail = NIL;
+    private int freeHead = NIL;
+    // ячейки дальше used ещё ни разу не использовались
+    private int used;
+    private int size;
+    private long modCount;
+    private HistoryListener listener = HistoryListener.NONE;
+
+    public ArrayHistoryManager() {
+        this(HistoryLinkedList.UNBOUNDED);
+    }
+
+    public ArrayHistoryManager(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        int capacity = Math.min(maxSize, INITIAL_CAPACITY);
+        tasks = new Task[capacity];
+        ids = new int[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return getHistory(0, size);
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректная страница истории: offset=" + offset + ", limit=" + limit);
+        }
+        int count = Math.max(0, Math.min(limit, size - offset));
+        List<Task> result = new ArrayList<>(count);
+        int slot = head;
+        for (int i = 0; i < offset && slot != NIL; i++) {
+            slot = next[slot];
+        }
+        while (slot != NIL && result.size() < count) {
+            result.add(tasks[slot]);
+            slot = next[slot];
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(int id) {
+        int slot = slotsById.remove(id);
+        if (slot == IntIntMap.MISSING) {
+            return;
+        }
+        unlink(slot);
+        tasks[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+        modCount++;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (task == null) {
+            return;
+        }
+        modCount++;
+        int id = task.getId();
+        int slot = slotsById.get(id);
+        if (slot != IntIntMap.MISSING) {
+            tasks[slot] = task;
+            if (slot != tail) {
+                unlink(slot);
+                linkLast(slot);
+            }
+            return;
+        }
+        if (size == maxSize) {
+            int eldest = ids[head];
+            remove(eldest);
+            listener.evicted(eldest);
+        }
+        slot = allocate();
+        tasks[slot] = task;
+        ids[slot] = id;
+        slotsById.put(id, slot);
+        linkLast(slot);
+        size++;
+        listener.added(id);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(tasks, 0, used, null);
+        slotsById.clear();
+        head = NIL;
+        tail = NIL;
+        freeHead = NIL;
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public void setListener(HistoryListener listener) {
+        this.listener = listener == null ? HistoryListener.NONE : listener;
+    }
+
+    @Override
+    public long getModCount() {
+        return modCount;
+    }
+
+    private int allocate() {
+        if (freeHead != NIL) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (used == tasks.length) {
+            int capacity = (int) Math.min((long) tasks.length * 2, maxSize);
+            tasks = Arrays.copyOf(tasks, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return used++;
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NIL;
+        if (tail == NIL) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NIL) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NIL) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+}
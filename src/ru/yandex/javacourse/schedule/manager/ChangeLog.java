@@ -0,0 +1,126 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Журнал последних изменений для дельта-синхронизации клиентов: кольцевой буфер на параллельных массивах.
+ * Журнал же выдаёт номера версий, поэтому запись с версией v появляется в нём одновременно с самой версией.
+ * Клиенту, отставшему сильнее ёмкости журнала, отвечают, что нужна полная пересинхронизация.
+ * Версии считаются заново в каждом экземпляре журнала, поэтому к ним прилагается случайная эпоха экземпляра:
+ * версия из другой эпохи (например, полученная до перезапуска сервера) тоже требует пересинхронизации.
+ */
+public class ChangeLog {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    // эпоха не больше 2^53, чтобы её без потерь читали клиенты на JavaScript
+    private static final long EPOCH_BOUND = 1L << 53;
+
+    private final long[] versions;
+    private final int[] ids;
+    private final TaskType[] types;
+    private final Kind[] kinds;
+    private final long epoch = ThreadLocalRandom.current().nextLong(1, EPOCH_BOUND);
+    private int head;
+    private int size;
+    private volatile long version;
+    // самая новая версия среди вытесненных записей: изменения до неё включительно уже не восстановить
+    private long evicted;
+
+    public ChangeLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChangeLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость журнала должна быть положительной: " + capacity);
+        }
+        versions = new long[capacity];
+        ids = new int[capacity];
+        types = new TaskType[capacity];
+        kinds = new Kind[capacity];
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * @return версия, присвоенная изменению
+     */
+    public synchronized long append(TaskType type, int id, Kind kind) {
+        int capacity = versions.length;
+        int slot = (head + size) % capacity;
+        if (size == capacity) {
+            evicted = versions[head];
+            head = (head + 1) % capacity;
+        } else {
+            size++;
+        }
+        long next = version + 1;
+        versions[slot] = next;
+        ids[slot] = id;
+        types[slot] = type;
+        kinds[slot] = kind;
+        version = next;
+        return next;
+    }
+
+    /**
+     * Забывает все записи, например после загрузки из файла: клиенты с любой прежней версией пересинхронизируются.
+     */
+    public synchronized long reset() {
+        head = 0;
+        size = 0;
+        evicted = ++version;
+        return version;
+    }
+
+    /**
+     * @param epoch эпоха, в которой клиент получил версию since
+     */
+    public synchronized Changes since(long epoch, long since) {
+        if (epoch != this.epoch || since < evicted || since > version) {
+            return new Changes(this.epoch, version, true, List.of());
+        }
+        // записи упорядочены по версии, поэтому начало ищется двоичным поиском
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (versions[(head + mid) % versions.length] <= since) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<Change> changes = new ArrayList<>(size - low);
+        for (int i = low; i < size; i++) {
+            int slot = (head + i) % versions.length;
+            changes.add(new Change(versions[slot], types[slot], ids[slot], kinds[slot]));
+        }
+        return new Changes(epoch, version, false, changes);
+    }
+
+    public enum Kind {
+        CREATED, UPDATED, DELETED
+    }
+
+    public record Change(long version, TaskType type, int id, Kind kind) {
+    }
+
+    /**
+     * @param epoch   эпоха журнала; клиент передаёт её вместе с версией в следующем запросе
+     * @param version текущая версия; с неё клиент запрашивает следующую порцию
+     * @param resync  изменения после запрошенной версии уже вытеснены или версия из другой эпохи —
+     *                нужно перечитать коллекции целиком
+     */
+    public record Changes(long epoch, long version, boolean resync, List<Change> changes) {
+    }
+}
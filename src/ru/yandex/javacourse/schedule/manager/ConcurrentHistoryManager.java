@@ -0,0 +1,290 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.util.IntMap;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Потокобезопасная история для чтения из многих потоков.
+ * Просмотр не трогает общий список: задача кладётся в кольцевой буфер своей полосы (полоса выбирается по потоку),
+ * а в упорядоченную историю буферы переносятся под блокировкой — в фоне через executor, когда буфер заполнился
+ * наполовину, либо перед любым чтением и изменением истории. Блокируется просмотр только тогда,
+ * когда буфер его полосы заполнен целиком и фоновый перенос не успевает.
+ * Порядок просмотров из разных потоков, попавших в разные полосы, между собой не определён.
+ */
+public class ConcurrentHistoryManager implements HistoryManager {
+    private static final int BUFFER_SIZE = 128;
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    private final HistoryManager history;
+    private final Executor executor;
+    private final ReadBuffer[] buffers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public ConcurrentHistoryManager(HistoryManager history) {
+        this(history, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param history  упорядоченная история, к которой обращаются только под блокировкой
+     * @param executor где выполняется фоновый перенос буферов
+     */
+    public ConcurrentHistoryManager(HistoryManager history, Executor executor) {
+        this.history = history;
+        this.executor = executor;
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        buffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            buffers[i] = new ReadBuffer();
+        }
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (task == null) {
+            return;
+        }
+        ReadBuffer buffer = buffers[stripe()];
+        while (!buffer.offer(task)) {
+            // буфер полон: переносим сами, дожидаясь блокировки
+            lock.lock();
+            try {
+                drainBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (buffer.pending() >= DRAIN_THRESHOLD) {
+            scheduleDrain();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        lock.lock();
+        try {
+            drainBuffers();
+            return history.getHistory();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        lock.lock();
+        try {
+            drainBuffers();
+            return history.getHistory(offset, limit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        lock.lock();
+        try {
+            drainBuffers();
+            history.remove(id);
+            for (ReadBuffer buffer : buffers) {
+                buffer.forget(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            drainBuffers();
+            history.clear();
+            for (ReadBuffer buffer : buffers) {
+                buffer.forgetAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getModCount() {
+        lock.lock();
+        try {
+            drainBuffers();
+            return history.getModCount();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Уведомления приходят из потока, переносящего буферы, под блокировкой истории и в порядке изменения истории.
+     */
+    @Override
+    public void setListener(HistoryListener listener) {
+        lock.lock();
+        try {
+            history.setListener(listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                drainScheduled.set(false);
+                lock.lock();
+                try {
+                    drainBuffers();
+                } finally {
+                    lock.unlock();
+                }
+            });
+        }
+    }
+
+    // вызывается под блокировкой
+    private void drainBuffers() {
+        for (ReadBuffer buffer : buffers) {
+            buffer.drainTo(history);
+        }
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & (buffers.length - 1);
+    }
+
+    /**
+     * Кольцевой буфер: пишут несколько потоков (место занимается CAS-ом по счётчику записи),
+     * читает только владелец блокировки. Место, которое уже занято, но ещё не записано, перенос пропускает
+     * и забирает следующим разом; счётчик чтения сдвигается только по сплошь забранным местам,
+     * поэтому пропущенное место не переиспользуется, пока его не заберут.
+     */
+    static final class ReadBuffer {
+        private static final int MASK = BUFFER_SIZE - 1;
+        // метка места, забранного раньше предшествующих ему незаписанных мест
+        private static final Task TAKEN = new Task("", "", null);
+
+        private final AtomicReferenceArray<Task> slots = new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        private volatile long readCounter;
+        // дальше поля меняются только под блокировкой: просмотры, занявшие место до удаления задачи,
+        // но записанные после него, не должны вернуть задачу в историю
+        private final IntMap<Long> removedBefore = new IntMap<>();
+        // самая дальняя граница в removedBefore: когда чтение её прошло, все границы уже ничего не отсекают
+        private long removedBound;
+        private long clearedBefore;
+
+        boolean offer(Task task) {
+            long position = claim();
+            if (position < 0) {
+                return false;
+            }
+            publish(position, task);
+            return true;
+        }
+
+        /**
+         * @return позиция занятого места или -1, если буфер полон
+         */
+        long claim() {
+            while (true) {
+                long tail = writeCounter.get();
+                if (tail - readCounter >= BUFFER_SIZE) {
+                    return -1;
+                }
+                if (writeCounter.compareAndSet(tail, tail + 1)) {
+                    return tail;
+                }
+            }
+        }
+
+        void publish(long position, Task task) {
+            slots.lazySet((int) (position & MASK), task);
+        }
+
+        long pending() {
+            return writeCounter.get() - readCounter;
+        }
+
+        void drainTo(HistoryManager history) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            long firstGap = -1;
+            for (long position = head; position < tail; position++) {
+                if (slots.get((int) (position & MASK)) == null) {
+                    if (firstGap < 0) {
+                        firstGap = position;
+                    }
+                    continue;
+                }
+                if (firstGap >= 0) {
+                    // раз эта запись видна, видны и более ранние записи того же потока:
+                    // забираем их первыми, чтобы просмотры одного потока не поменялись местами
+                    long earlier = firstGap;
+                    firstGap = -1;
+                    for (; earlier < position; earlier++) {
+                        if (!take(earlier, history) && firstGap < 0) {
+                            firstGap = earlier;
+                        }
+                    }
+                }
+                take(position, history);
+            }
+            while (head < tail && slots.get((int) (head & MASK)) == TAKEN) {
+                slots.lazySet((int) (head & MASK), null);
+                head++;
+            }
+            readCounter = head;
+            if (!removedBefore.isEmpty() && head >= removedBound) {
+                removedBefore.clear();
+            }
+        }
+
+        /**
+         * Вызывается после удаления задачи из истории: её просмотры в ещё не записанных местах не учитываются.
+         */
+        void forget(int id) {
+            long tail = writeCounter.get();
+            if (readCounter < tail) {
+                removedBefore.put(id, tail);
+                removedBound = Math.max(removedBound, tail);
+            }
+        }
+
+        void forgetAll() {
+            clearedBefore = writeCounter.get();
+            removedBefore.clear();
+        }
+
+        // false, если место ещё не записано
+        private boolean take(long position, HistoryManager history) {
+            int index = (int) (position & MASK);
+            Task task = slots.get(index);
+            if (task == null) {
+                return false;
+            }
+            if (task != TAKEN) {
+                slots.lazySet(index, TAKEN);
+                Long bound = removedBefore.get(task.getId());
+                if (position >= clearedBefore && (bound == null || position >= bound)) {
+                    history.addTask(task);
+                }
+            }
+            return true;
+        }
+    }
+}
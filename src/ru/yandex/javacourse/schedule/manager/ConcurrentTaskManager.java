@@ -0,0 +1,267 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.exceptions.NotFoundException;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Потокобезопасный менеджер задач: логика хранилища общая с InMemoryTaskManager, здесь только блокировки.
+ * Задачи и подзадачи читаются без блокировок — при изменении они заменяются целиком. Эпик меняется на месте
+ * вместе с подзадачами, поэтому читатели и история получают его копию, снятую под блокировкой эпика.
+ * Изменения эпика и его подзадач защищены блокировкой из пула по id эпика, изменения задачи — блокировкой
+ * из такого же пула по id задачи, проверка пересечений по времени — отдельной блокировкой.
+ * Порядок захвата: сначала блокировка эпика или задачи, потом timeLock.
+ */
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock timeLock = new ReentrantLock();
+    private final ReentrantLock[] epicLocks = new ReentrantLock[STRIPES];
+    private final ReentrantLock[] taskLocks = new ReentrantLock[STRIPES];
+    // копии эпиков для getEpics; пересобираются, когда меняется версия коллекции эпиков
+    private volatile EpicsView epicsView;
+
+    public ConcurrentTaskManager() {
+        this(new ConcurrentHistoryManager(Managers.newHistory()));
+    }
+
+    /**
+     * @param historyManager история, к которой обращаются из многих потоков без внешней блокировки
+     */
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager, true);
+        for (int i = 0; i < STRIPES; i++) {
+            epicLocks[i] = new ReentrantLock();
+            taskLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        // версия читается до сборки: изменение, закончившееся позже, сменит её и вызовет пересборку
+        long version = getVersion(TaskType.epic);
+        EpicsView cached = epicsView;
+        if (cached != null && cached.version == version) {
+            return cached.epics;
+        }
+        List<Epic> live = super.getEpics();
+        List<Epic> copies = new ArrayList<>(live.size());
+        for (Epic epic : live) {
+            copies.add(exposed(epic));
+        }
+        List<Epic> epics = Collections.unmodifiableList(copies);
+        epicsView = new EpicsView(version, epics);
+        return epics;
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        ReentrantLock lock = epicLock(epicId);
+        lock.lock();
+        try {
+            return super.getEpicSubtasks(epicId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        ReentrantLock lock = epicLock(subtask.getEpicId());
+        lock.lock();
+        try {
+            return super.addNewSubtask(subtask);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        ReentrantLock lock = taskLock(task.getId());
+        lock.lock();
+        try {
+            super.updateTask(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        ReentrantLock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            super.updateEpic(epic);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        final int id = subtask.getId();
+        final int epicId = subtask.getEpicId();
+        while (true) {
+            final Subtask current = storedSubtask(id);
+            if (current == null) {
+                throw new NotFoundException("Subtask not found: " + id);
+            }
+            // подзадачу могут перенести в другой эпик: тогда нужны блокировки обоих, в порядке номеров
+            int oldEpicId = current.getEpicId();
+            int first = Math.min(Math.floorMod(oldEpicId, STRIPES), Math.floorMod(epicId, STRIPES));
+            int second = Math.max(Math.floorMod(oldEpicId, STRIPES), Math.floorMod(epicId, STRIPES));
+            epicLocks[first].lock();
+            epicLocks[second].lock();
+            try {
+                if (!movedFrom(id, oldEpicId)) {
+                    super.updateSubtask(subtask);
+                    return;
+                }
+            } finally {
+                epicLocks[second].unlock();
+                epicLocks[first].unlock();
+            }
+        }
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        ReentrantLock lock = taskLock(id);
+        lock.lock();
+        try {
+            super.deleteTask(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        ReentrantLock lock = epicLock(id);
+        lock.lock();
+        try {
+            super.deleteEpic(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        while (true) {
+            Subtask subtask = storedSubtask(id);
+            if (subtask == null) {
+                throw new NotFoundException("subtask not found: " + id);
+            }
+            ReentrantLock lock = epicLock(subtask.getEpicId());
+            lock.lock();
+            try {
+                if (!movedFrom(id, subtask.getEpicId())) {
+                    super.deleteSubtask(id);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // массовые удаления идут по одной задаче под её блокировкой; удалённое другим потоком пропускается
+    @Override
+    public void deleteTasks() {
+        for (Task task : getTasks()) {
+            try {
+                deleteTask(task.getId());
+            } catch (NotFoundException ignored) {
+                // задача уже удалена другим потоком
+            }
+        }
+    }
+
+    @Override
+    public void deleteSubtasks() {
+        for (Epic epic : super.getEpics()) {
+            ReentrantLock lock = epicLock(epic.getId());
+            lock.lock();
+            try {
+                deleteSubtasksOf(epic.getId());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void deleteEpics() {
+        for (Epic epic : super.getEpics()) {
+            try {
+                deleteEpic(epic.getId());
+            } catch (NotFoundException ignored) {
+                // эпик уже удалён другим потоком
+            }
+        }
+    }
+
+    @Override
+    protected Epic exposed(Epic epic) {
+        ReentrantLock lock = epicLock(epic.getId());
+        lock.lock();
+        try {
+            Epic copy = new Epic(epic.getId(), epic.getName(), epic.getDescription(), epic.getStatus(),
+                    epic.getStartTime(), epic.getDuration(), epic.getEndTime());
+            epic.forEachSubtaskId(copy::addSubtaskId);
+            copy.setInManager();
+            return copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void addToTimeIndex(Task task) {
+        if (task.getStartTime() == null) {
+            return;
+        }
+        timeLock.lock();
+        try {
+            super.addToTimeIndex(task);
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    @Override
+    protected void replaceInTimeIndex(Task old, Task task) {
+        timeLock.lock();
+        try {
+            super.replaceInTimeIndex(old, task);
+        } finally {
+            timeLock.unlock();
+        }
+    }
+
+    // true, если пока ждали блокировку, подзадачу перенесли в другой эпик и блокировку надо брать заново
+    private boolean movedFrom(int subtaskId, int epicId) {
+        Subtask subtask = storedSubtask(subtaskId);
+        return subtask != null && subtask.getEpicId() != epicId;
+    }
+
+    private ReentrantLock epicLock(int epicId) {
+        return epicLocks[Math.floorMod(epicId, STRIPES)];
+    }
+
+    private ReentrantLock taskLock(int id) {
+        return taskLocks[Math.floorMod(id, STRIPES)];
+    }
+
+    private record EpicsView(long version, List<Epic> epics) {
+    }
+}
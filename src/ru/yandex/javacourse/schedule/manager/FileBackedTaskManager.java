@@ -1,40 +1,82 @@
 package ru.yandex.javacourse.schedule.manager;
 
+import ru.yandex.javacourse.schedule.exceptions.ManagerLoadException;
+import ru.yandex.javacourse.schedule.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.schedule.exceptions.NotFoundException;
 import ru.yandex.javacourse.schedule.tasks.*;
 
 import java.io.*;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements Closeable {
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final String CHECKSUM_PREFIX = "#crc32,";
+    // первая строка снимков, у которых строка с контрольной суммой обязательна
+    private static final String FORMAT_MARKER = "#kanban-csv,2";
+    private static final int PARALLEL_CHUNK_BYTES = 1 << 20;
+    // первая строка после метки формата: поколение журнала, записи которого уже вошли в снимок
+    private static final String JOURNAL_PREFIX = "#journal,";
+    // запись журнала: операция (1 байт) | задача в кодировке TaskBinaryFormat или тип (1 байт) [| id (4 байта)]
+    private static final byte ADD = '+';
+    private static final byte UPDATE = '~';
+    private static final byte DELETE = '-';
+    private static final byte DELETE_ALL = '*';
     private final String fileHead = "id,type,name,status,description,startTime,duration,endTime,epic";
     private final String fileName;
+    private final TaskJournal journal;
+    private final JournalConfig journalConfig;
+    private final SnapshotFormat format;
+    private boolean replaying = false;
+    private long snapshotGeneration;
+    private int loadedRecords;
+    private long loadNanos;
 
     public FileBackedTaskManager(String fileName) {
+        this(fileName, null);
+    }
+
+    public FileBackedTaskManager(String fileName, JournalConfig journalConfig) {
+        this(fileName, SnapshotFormat.CSV, journalConfig);
+    }
+
+    /**
+     * @param format        формат, в котором пишется снимок; при загрузке формат определяется по содержимому файла,
+     *                      поэтому CSV-файл, открытый с BINARY, при следующем сохранении станет двоичным
+     * @param journalConfig если не null, каждое изменение дописывается в журнал fileName + ".log",
+     *                      а снимок перезаписывается только при сжатии журнала
+     */
+    public FileBackedTaskManager(String fileName, SnapshotFormat format, JournalConfig journalConfig) {
         super();
         this.fileName = fileName;
-        try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
-            String head = br.readLine();
-            if (head == null) {
-                return;
-            }
-            if (br.ready() && !head.equals(fileHead)) {
-                throw new IOException("Неверный заголовок файла");
-            }
-            while (br.ready()) {
-                String line = br.readLine();
-                fromFileString(line);
-            }
+        this.format = format;
+        this.journalConfig = journalConfig;
+        try {
+            load();
+        } catch (NoSuchFileException e) {
+            System.out.println("Файл не найден: " + fileName);
         } catch (IOException e) {
-            System.out.println(e.getMessage());
+            // иначе менеджер стартовал бы пустым и первое же изменение затёрло бы нечитаемый снимок
+            throw new ManagerLoadException("Не удалось прочитать снимок " + fileName + ": " + e.getMessage(), e);
         }
+        journal = journalConfig != null ? openJournal() : null;
     }
 
     public static void main(String[] args) {
         String fileName = "timedTasks.csv"; // файл сохранения
         FileBackedTaskManager manager = Managers.loadFromFile(fileName);
+        System.out.printf("Загружено строк: %d (%.0f строк/с)%n", manager.getLoadedRecords(), manager.getLoadRate());
 
         // --- создаём задачи ---
         Task task1 = new Task("Покупки", "Купить продукты в магазине", TaskStatus.NEW);
@@ -71,115 +113,586 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         System.out.println("Подзадачи совпадают: " + subsEqual);
     }
 
-    public int fromFileString(String line) {
-        String[] lines = line.split(",");
-        int id = Integer.parseInt(lines[0]);
-        TaskType type = TaskType.valueOf(lines[1]);
-        String name = lines[2];
-        TaskStatus status = TaskStatus.valueOf(lines[3]);
-        String description = lines[4];
-        LocalDateTime startTime = lines[5].equals("???") ? null : LocalDateTime.parse(lines[5]);
-        Duration duration = lines[6].equals("???") ? null : Duration.ofMinutes(Long.parseLong(lines[6]));
-        switch (type) {
-            case task: {
-                Task task = new Task(id, name, description, status, startTime, duration);
-                super.addFileTask(task);
-                return id;
-            }
-            case epic: {
-                LocalDateTime endTime = lines[7].equals("???") ? null : LocalDateTime.parse(lines[7]);
-                Epic epic = new Epic(id, name, description, status, startTime, duration, endTime);
-                super.addFileEpic(epic);
-                return id;
-            }
-            case subTask: {
-                int epicId = Integer.parseInt(lines[8]);
-                Subtask subtask = new Subtask(id, name, description, status, startTime, duration, epicId);
-                super.addFileSubtask(subtask);
-                return id;
-            }
-            default:
-                throw new IllegalStateException("Неизвестный тип задачи: " + type);
+    /**
+     * Переводит снимок csvFileName (в том числе tasks.csv и timedTasks.csv) в двоичный формат в binaryFileName.
+     * Файл пишется так же, как снимок при сохранении: через временный файл и атомарное переименование.
+     */
+    public static void convertToBinary(String csvFileName, String binaryFileName) {
+        FileBackedTaskManager source = new FileBackedTaskManager(csvFileName);
+        List<Task> allTasks = new ArrayList<>();
+        allTasks.addAll(source.getTasks());
+        allTasks.addAll(source.getEpics());
+        allTasks.addAll(source.getSubtasks());
+        writeAtomically(Path.of(binaryFileName), out -> TaskBinaryFormat.write(out, allTasks, source.snapshotGeneration));
+    }
+
+    public synchronized int fromFileString(String line) {
+        return addFromFile(parseTask(line));
+    }
+
+    /**
+     * @return число строк, загруженных из снимка при создании менеджера
+     */
+    public int getLoadedRecords() {
+        return loadedRecords;
+    }
+
+    /**
+     * @return скорость загрузки снимка, строк в секунду
+     */
+    public double getLoadRate() {
+        return loadNanos == 0 ? 0 : loadedRecords * 1e9 / loadNanos;
+    }
+
+    private int addFromFile(Task task) {
+        if (task instanceof Epic epic) {
+            super.addFileEpic(epic);
+        } else if (task instanceof Subtask subtask) {
+            super.addFileSubtask(subtask);
+        } else {
+            super.addFileTask(task);
         }
+        return task.getId();
+    }
+
+    private Task parseTask(String line) {
+        return TaskCsvParser.parseLine(line);
     }
 
     @Override
     public Integer addNewSubtask(Subtask subtask) {
-        Integer subtaskId = super.addNewSubtask(subtask);
-        save();
+        Integer subtaskId;
+        long seq;
+        synchronized (this) {
+            subtaskId = super.addNewSubtask(subtask);
+            seq = persist(record(ADD, subtask));
+        }
+        awaitCommit(seq);
         return subtaskId;
     }
 
     @Override
     public int addNewTask(Task task) {
-        int taskId = super.addNewTask(task);
-        save();
+        int taskId;
+        long seq;
+        synchronized (this) {
+            taskId = super.addNewTask(task);
+            seq = persist(record(ADD, task));
+        }
+        awaitCommit(seq);
         return taskId;
     }
 
+    @Override
     public int addNewEpic(Epic epic) {
-        int epicId = super.addNewEpic(epic);
-        save();
+        int epicId;
+        long seq;
+        synchronized (this) {
+            epicId = super.addNewEpic(epic);
+            seq = persist(record(ADD, epic));
+        }
+        awaitCommit(seq);
         return epicId;
     }
 
+    @Override
+    public void updateTask(Task task) {
+        long seq;
+        synchronized (this) {
+            super.updateTask(task);
+            seq = persist(record(UPDATE, task));
+        }
+        awaitCommit(seq);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        long seq;
+        synchronized (this) {
+            super.updateEpic(epic);
+            seq = persist(record(UPDATE, epic));
+        }
+        awaitCommit(seq);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        long seq;
+        synchronized (this) {
+            super.updateSubtask(subtask);
+            seq = persist(record(UPDATE, subtask));
+        }
+        awaitCommit(seq);
+    }
+
     @Override
     public void deleteTask(int id) {
-        super.deleteTask(id);
-        save();
+        long seq;
+        synchronized (this) {
+            super.deleteTask(id);
+            seq = persist(record(DELETE, TaskType.task, id));
+        }
+        awaitCommit(seq);
     }
 
     @Override
     public void deleteEpic(int id) {
-        super.deleteEpic(id);
-        save();
+        long seq;
+        synchronized (this) {
+            super.deleteEpic(id);
+            seq = persist(record(DELETE, TaskType.epic, id));
+        }
+        awaitCommit(seq);
     }
 
     @Override
     public void deleteSubtask(int id) {
-        super.deleteSubtask(id);
-        save();
+        long seq;
+        synchronized (this) {
+            super.deleteSubtask(id);
+            seq = persist(record(DELETE, TaskType.subTask, id));
+        }
+        awaitCommit(seq);
     }
 
     @Override
     public void deleteTasks() {
-        super.deleteTasks();
-        save();
+        long seq;
+        synchronized (this) {
+            super.deleteTasks();
+            seq = persist(record(DELETE_ALL, TaskType.task, 0));
+        }
+        awaitCommit(seq);
     }
 
     @Override
     public void deleteSubtasks() {
-        super.deleteSubtasks();
-        save();
+        long seq;
+        synchronized (this) {
+            super.deleteSubtasks();
+            seq = persist(record(DELETE_ALL, TaskType.subTask, 0));
+        }
+        awaitCommit(seq);
     }
 
     @Override
     public void deleteEpics() {
-        super.deleteEpics();
+        long seq;
+        synchronized (this) {
+            super.deleteEpics();
+            seq = persist(record(DELETE_ALL, TaskType.epic, 0));
+        }
+        awaitCommit(seq);
+    }
+
+    // чтение тоже идёт под блокировкой менеджера: хранилище InMemoryTaskManager не потокобезопасно,
+    // а просмотр задачи меняет историю
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return super.getPrioritizedTasks();
+    }
+
+    @Override
+    public synchronized boolean hasAnyCrossing() {
+        return super.hasAnyCrossing();
+    }
+
+    @Override
+    public synchronized long getVersion() {
+        return super.getVersion();
+    }
+
+    @Override
+    public synchronized long getVersion(TaskType type) {
+        return super.getVersion(type);
+    }
+
+    @Override
+    public synchronized ChangeLog.Changes getChanges(long epoch, long since) {
+        return super.getChanges(epoch, since);
+    }
+
+    @Override
+    public synchronized List<Task> getTasks() {
+        return super.getTasks();
+    }
+
+    @Override
+    public synchronized List<Subtask> getSubtasks() {
+        return super.getSubtasks();
+    }
+
+    @Override
+    public synchronized List<Epic> getEpics() {
+        return super.getEpics();
+    }
+
+    @Override
+    public synchronized List<Subtask> getEpicSubtasks(int epicId) {
+        return super.getEpicSubtasks(epicId);
+    }
+
+    @Override
+    public synchronized Task getTask(int id) {
+        return super.getTask(id);
+    }
+
+    @Override
+    public synchronized Subtask getSubtask(int id) {
+        return super.getSubtask(id);
+    }
+
+    @Override
+    public synchronized Epic getEpic(int id) {
+        return super.getEpic(id);
+    }
+
+    @Override
+    public synchronized Optional<Task> getOptionalTask(int id) {
+        return super.getOptionalTask(id);
+    }
+
+    @Override
+    public synchronized Optional<Subtask> getOptionalSubtask(int id) {
+        return super.getOptionalSubtask(id);
+    }
+
+    @Override
+    public synchronized Optional<Epic> getOptionalEpic(int id) {
+        return super.getOptionalEpic(id);
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getHistory(int offset, int limit) {
+        return super.getHistory(offset, limit);
+    }
+
+    @Override
+    public synchronized long getHistoryModCount() {
+        return super.getHistoryModCount();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Дожидается, пока все записи журнала будут сброшены на диск (для режима ASYNC).
+     */
+    public void flush() throws IOException {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    /**
+     * @return число групп записей журнала, сброшенных на диск; 0, если журнал не ведётся
+     */
+    int getJournalForceCount() {
+        return journal != null ? journal.getForceCount() : 0;
+    }
+
+    /**
+     * Переписывает CSV текущим состоянием и очищает журнал. Журнал очищается только после того,
+     * как новый снимок записан и переименован; если снимок записать не удалось, журнал остаётся как есть.
+     *
+     * @throws ManagerSaveException если снимок не записан
+     */
+    public synchronized void compact() {
         save();
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.reset(journal.generation() + 1);
+        } catch (IOException e) {
+            System.out.println("Не удалось очистить журнал.\n" + e.getMessage());
+        }
     }
 
-    private void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
-            writer.write(fileHead + "\n");
-            List<Task> allTasks = new ArrayList<>();
-            allTasks.addAll(super.getTasks());
-            allTasks.addAll(super.getEpics());
-            allTasks.addAll(super.getSubtasks());
-            for (Task value : allTasks) {
-                writer.write(value.toFileString() + "\n");
+    private TaskJournal openJournal() {
+        try {
+            TaskJournal taskJournal = new TaskJournal(Path.of(fileName + JOURNAL_SUFFIX), journalConfig);
+            if (taskJournal.generation() <= snapshotGeneration) {
+                // сбой после записи снимка, но до очистки журнала: его записи уже в снимке
+                taskJournal.reset(snapshotGeneration + 1);
+                return taskJournal;
+            }
+            replaying = true;
+            try {
+                taskJournal.replay(this::applyJournalRecord);
+            } finally {
+                replaying = false;
             }
+            return taskJournal;
         } catch (IOException e) {
-            System.out.println("Произошла ошибка во время записи файла.\n" + e.getMessage());
+            throw new UncheckedIOException("Не удалось открыть журнал " + fileName + JOURNAL_SUFFIX, e);
+        }
+    }
 
+    private static byte[] record(byte op, Task task) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(op);
+        try {
+            TaskBinaryFormat.writeTask(out, task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return out.toByteArray();
     }
 
-    private void save(Task task) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
-            writer.write(task.toFileString() + "\n");
+    private static byte[] record(byte op, TaskType type, int id) {
+        return ByteBuffer.allocate(6).put(op).put((byte) type.ordinal()).putInt(id).array();
+    }
+
+    // записи применяются терпимо к отсутствующим id: журнал мог частично совпасть с более новым снимком
+    private void applyJournalRecord(byte[] record) {
+        try {
+            switch (record[0]) {
+                case ADD -> applyAdd(TaskBinaryFormat.readTask(record, 1, record.length));
+                case UPDATE -> applyUpdate(TaskBinaryFormat.readTask(record, 1, record.length));
+                case DELETE -> {
+                    int id = ByteBuffer.wrap(record, 2, 4).getInt();
+                    switch (TaskType.values()[record[1]]) {
+                        case task -> super.deleteTask(id);
+                        case epic -> super.deleteEpic(id);
+                        case subTask -> super.deleteSubtask(id);
+                    }
+                }
+                case DELETE_ALL -> {
+                    switch (TaskType.values()[record[1]]) {
+                        case task -> super.deleteTasks();
+                        case epic -> super.deleteEpics();
+                        case subTask -> super.deleteSubtasks();
+                    }
+                }
+                default -> throw new ManagerLoadException("Неизвестная запись журнала: " + (char) record[0]);
+            }
+        } catch (NotFoundException ignored) {
+            // задачу или её эпик уже удалила более поздняя запись, попавшая в снимок
         } catch (IOException e) {
-            System.out.println("Произошла ошибка во время записи файла.");
+            throw new ManagerLoadException("Повреждена запись журнала " + fileName + JOURNAL_SUFFIX, e);
+        }
+    }
+
+    private void applyAdd(Task task) {
+        if (contains(task.getId())) {
+            applyUpdate(task);
+        } else {
+            addFromFile(task);
+        }
+    }
+
+    private void applyUpdate(Task task) {
+        if (!contains(task.getId())) {
+            return;
+        }
+        if (task instanceof Epic epic) {
+            super.updateEpic(epic);
+        } else if (task instanceof Subtask subtask) {
+            super.updateSubtask(subtask);
+        } else {
+            super.updateTask(task);
+        }
+    }
+
+    // вызывается под блокировкой менеджера; возвращает номер записи журнала, сброса которой нужно дождаться,
+    // а если запись не удалась — бросает ManagerSaveException, и HTTP-обработчик отвечает 500
+    private long persist(byte[] record) {
+        if (replaying) {
+            return 0;
+        }
+        if (journal == null) {
+            save();
+            return 0;
         }
+        long seq;
+        try {
+            seq = journal.write(record);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Произошла ошибка во время записи журнала " + fileName + JOURNAL_SUFFIX, e);
+        }
+        if (journal.size() >= journalConfig.getCompactThreshold()) {
+            try {
+                compact();
+            } catch (ManagerSaveException e) {
+                // запись уже в журнале; сжатие повторится при следующем изменении
+                System.out.println("Не удалось сжать журнал.\n" + e.getMessage());
+            }
+        }
+        return seq;
+    }
+
+    // ожидание идёт вне блокировки менеджера, поэтому записи одновременных писателей сбрасываются одной группой
+    private void awaitCommit(long seq) {
+        if (journal == null || seq == 0) {
+            return;
+        }
+        try {
+            journal.awaitCommit(seq);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Запись журнала не сброшена на диск: " + fileName + JOURNAL_SUFFIX, e);
+        }
+    }
+
+    /**
+     * Читает снимок целиком и сверяет контрольную сумму до разбора строк. Если снимок начинается с метки формата,
+     * строка с контрольной суммой обязательна: без неё файл считается обрезанным.
+     */
+    private void load() throws IOException {
+        byte[] data = Files.readAllBytes(Path.of(fileName));
+        long started = System.nanoTime();
+        if (TaskBinaryFormat.isBinary(data)) {
+            List<Task> loaded = TaskBinaryFormat.read(data);
+            snapshotGeneration = TaskBinaryFormat.readJournalGeneration(data);
+            addFileTasks(loaded);
+            loadedRecords = loaded.size();
+            loadNanos = System.nanoTime() - started;
+            return;
+        }
+        byte[] marker = (FORMAT_MARKER + "\n").getBytes(StandardCharsets.UTF_8);
+        boolean marked = data.length >= marker.length && Arrays.equals(data, 0, marker.length, marker, 0, marker.length);
+        int contentLength = verifyChecksum(data, marked);
+        TaskCsvParser parser = new TaskCsvParser(data, marked ? marker.length : 0, contentLength);
+        String head = parser.nextLine();
+        if (head != null && marked && head.startsWith(JOURNAL_PREFIX)) {
+            snapshotGeneration = Long.parseLong(head.substring(JOURNAL_PREFIX.length()));
+            head = parser.nextLine();
+        }
+        if (head == null) {
+            return;
+        }
+        if (parser.hasNext() && !head.equals(fileHead)) {
+            throw new IOException("Неверный заголовок файла");
+        }
+        List<Task> loaded = parseChunks(data, parser.position(), contentLength);
+        addFileTasks(loaded);
+        loadedRecords = loaded.size();
+        loadNanos = System.nanoTime() - started;
+    }
+
+    // большие снимки режутся по границам строк на куски, которые разбираются параллельно; порядок строк сохраняется
+    private static List<Task> parseChunks(byte[] data, int start, int end) {
+        int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), (end - start) / PARALLEL_CHUNK_BYTES));
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = start;
+        bounds[chunks] = end;
+        for (int i = 1; i < chunks; i++) {
+            int bound = Math.max(bounds[i - 1], (int) (start + (long) (end - start) * i / chunks));
+            while (bound < end && data[bound - 1] != '\n') {
+                bound++;
+            }
+            bounds[i] = bound;
+        }
+        return IntStream.range(0, chunks).parallel().mapToObj(i -> {
+            TaskCsvParser parser = new TaskCsvParser(data, bounds[i], bounds[i + 1]);
+            List<Task> part = new ArrayList<>();
+            while (parser.hasNext()) {
+                part.add(parser.next());
+            }
+            return part;
+        }).flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    // возвращает длину данных без строки с контрольной суммой; файлы старого формата без метки принимаются и без неё
+    private int verifyChecksum(byte[] data, boolean required) {
+        int end = data.length;
+        if (end > 0 && data[end - 1] == '\n') {
+            end--;
+        }
+        int lineStart = end;
+        while (lineStart > 0 && data[lineStart - 1] != '\n') {
+            lineStart--;
+        }
+        String lastLine = new String(data, lineStart, end - lineStart, StandardCharsets.UTF_8);
+        if (!lastLine.startsWith(CHECKSUM_PREFIX)) {
+            if (required) {
+                throw new ManagerLoadException("Снимок обрезан, нет строки с контрольной суммой: " + fileName);
+            }
+            return data.length;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, lineStart);
+        long expected = Long.parseLong(lastLine.substring(CHECKSUM_PREFIX.length()), 16);
+        if (crc.getValue() != expected) {
+            throw new ManagerLoadException("Снимок повреждён, контрольная сумма не совпадает: " + fileName);
+        }
+        return lineStart;
+    }
+
+    private void save() {
+        List<Task> allTasks = new ArrayList<>();
+        allTasks.addAll(super.getTasks());
+        allTasks.addAll(super.getEpics());
+        allTasks.addAll(super.getSubtasks());
+        long generation = journal != null ? journal.generation() : snapshotGeneration;
+        writeAtomically(Path.of(fileName), out -> {
+            if (format == SnapshotFormat.BINARY) {
+                TaskBinaryFormat.write(out, allTasks, generation);
+            } else {
+                writeCsv(out, allTasks, generation);
+            }
+        });
+    }
+
+    /**
+     * Пишет файл во временный, сбрасывает его на диск и атомарно подменяет им основной файл,
+     * поэтому при сбое посреди записи старый файл остаётся целым. Затем сбрасывается каталог,
+     * чтобы само переименование пережило сбой питания.
+     *
+     * @throws ManagerSaveException если файл не записан или не переименован; старый файл при этом не тронут
+     */
+    private static void writeAtomically(Path file, SnapshotWriter writer) {
+        Path target = file.toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            writer.write(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Произошла ошибка во время записи файла " + tmp, e);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось заменить файл " + target, e);
+        }
+        try (FileChannel dir = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+            // не все платформы позволяют открыть каталог как файл (например, Windows)
+        }
+    }
+
+    private void writeCsv(OutputStream out, List<Task> allTasks, long generation) throws IOException {
+        CheckedOutputStream checked = new CheckedOutputStream(out, new CRC32());
+        Writer writer = new OutputStreamWriter(checked, StandardCharsets.UTF_8);
+        writer.write(FORMAT_MARKER + "\n");
+        writer.write(JOURNAL_PREFIX + generation + "\n");
+        writer.write(fileHead + "\n");
+        for (Task value : allTasks) {
+            writer.write(value.toFileString() + "\n");
+        }
+        writer.flush();
+        out.write((CHECKSUM_PREFIX + Long.toHexString(checked.getChecksum().getValue()) + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    public enum SnapshotFormat {
+        CSV, BINARY
+    }
+
+    @FunctionalInterface
+    private interface SnapshotWriter {
+        void write(OutputStream out) throws IOException;
     }
 }
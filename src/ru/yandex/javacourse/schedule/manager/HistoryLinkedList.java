@@ -7,25 +7,58 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Просмотренные задачи в порядке просмотра. При заданном maxSize самая давняя запись вытесняется за O(1).
+ */
 public class HistoryLinkedList {
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
     private final Map<Integer, Node> nodeMap = new HashMap<>();
+    private final int maxSize;
+    private HistoryListener listener = HistoryListener.NONE;
     private Node first;
     private Node last;
 
+    public HistoryLinkedList() {
+        this(UNBOUNDED);
+    }
+
+    public HistoryLinkedList(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    public void setListener(HistoryListener listener) {
+        this.listener = listener == null ? HistoryListener.NONE : listener;
+    }
+
     public void addTask(Task task) {
         if (task == null) {
             return;
         }
         int id = task.getId();
-        remove(id);
+        boolean present = remove(id);
         Node newNode = linkLast(task);
         nodeMap.put(id, newNode);
+        if (!present) {
+            listener.added(id);
+        }
+        if (nodeMap.size() > maxSize) {
+            int eldest = first.task.getId();
+            remove(eldest);
+            listener.evicted(eldest);
+        }
     }
 
-    public void remove(int id) {
+    /**
+     * @return false, если задачи с таким id в истории не было
+     */
+    public boolean remove(int id) {
         Node node = nodeMap.remove(id);
         if (node == null) {
-            return;
+            return false;
         }
         Node prev = node.prev;
         Node next = node.next;
@@ -39,6 +72,7 @@ public class HistoryLinkedList {
         } else {
             next.prev = prev;
         }
+        return true;
     }
 
     public void clear() {
@@ -47,10 +81,28 @@ public class HistoryLinkedList {
         nodeMap.clear();
     }
 
+    public int size() {
+        return nodeMap.size();
+    }
+
     public List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
+        return getTasks(0, nodeMap.size());
+    }
+
+    /**
+     * @return не больше limit задач, начиная с offset-й от самой давней
+     */
+    public List<Task> getTasks(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректная страница истории: offset=" + offset + ", limit=" + limit);
+        }
+        int count = Math.max(0, Math.min(limit, nodeMap.size() - offset));
+        List<Task> tasks = new ArrayList<>(count);
         Node current = first;
-        while (current != null) {
+        for (int i = 0; i < offset && current != null; i++) {
+            current = current.next;
+        }
+        while (current != null && tasks.size() < count) {
             tasks.add(current.task);
             current = current.next;
         }
@@ -0,0 +1,27 @@
+package ru.yandex.javacourse.schedule.manager;
+
+/**
+ * Уведомления о составе истории: какие задачи в ней появились и какие она выбросила сама из-за ограничения размера.
+ * Явные удаление и очистка не сообщаются — о них вызывающий код знает сам.
+ */
+public interface HistoryListener {
+    HistoryListener NONE = new HistoryListener() {
+        @Override
+        public void added(int id) {
+        }
+
+        @Override
+        public void evicted(int id) {
+        }
+    };
+
+    /**
+     * Задачи с этим id в истории не было, теперь она есть.
+     */
+    void added(int id);
+
+    /**
+     * История вытеснила самую давнюю задачу, чтобы не превысить свой размер.
+     */
+    void evicted(int id);
+}
@@ -12,9 +12,27 @@ import java.util.List;
 public interface HistoryManager {
     List<Task> getHistory();
 
+    /**
+     * Страница истории: не больше limit задач, начиная с offset-й от самой давней.
+     */
+    List<Task> getHistory(int offset, int limit);
+
     void remove(int id);
 
     void addTask(Task task);
 
     void clear();
+
+    /**
+     * Счётчик изменений истории: меняется при каждом просмотре, удалении и очистке,
+     * поэтому по нему можно понять, изменилась ли история с прошлого чтения.
+     */
+    long getModCount();
+
+    /**
+     * Подписывает слушателя на появление и вытеснение задач; истории, которые ничего не вытесняют и о составе
+     * не сообщают, могут подписку игнорировать.
+     */
+    default void setListener(HistoryListener listener) {
+    }
 }
@@ -5,25 +5,54 @@ import ru.yandex.javacourse.schedule.tasks.Task;
 import java.util.List;
 
 public class InMemoryHistoryManager implements HistoryManager {
-    private final HistoryLinkedList historyLinkedList = new HistoryLinkedList();
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final HistoryLinkedList historyLinkedList;
+    private long modCount;
+
+    public InMemoryHistoryManager() {
+        this(HistoryLinkedList.UNBOUNDED);
+    }
+
+    public InMemoryHistoryManager(int maxSize) {
+        historyLinkedList = new HistoryLinkedList(maxSize);
+    }
 
     @Override
     public List<Task> getHistory() {
         return historyLinkedList.getTasks();
     }
 
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        return historyLinkedList.getTasks(offset, limit);
+    }
+
     @Override
     public void remove(int id) {
         historyLinkedList.remove(id);
+        modCount++;
     }
 
     @Override
     public void addTask(Task task) {
         historyLinkedList.addTask(task);
+        modCount++;
     }
 
     @Override
     public void clear() {
         historyLinkedList.clear();
+        modCount++;
+    }
+
+    @Override
+    public void setListener(HistoryListener listener) {
+        historyLinkedList.setListener(listener);
+    }
+
+    @Override
+    public long getModCount() {
+        return modCount;
     }
 }
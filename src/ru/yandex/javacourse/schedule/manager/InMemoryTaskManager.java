@@ -4,47 +4,98 @@ import ru.yandex.javacourse.schedule.exceptions.NotFoundException;
 import ru.yandex.javacourse.schedule.tasks.Epic;
 import ru.yandex.javacourse.schedule.tasks.Subtask;
 import ru.yandex.javacourse.schedule.tasks.Task;
-import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
-import static ru.yandex.javacourse.schedule.tasks.TaskStatus.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final Set<Task> timedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
-    private int generatorId = 0;
-
+    private static final Comparator<Task> BY_START_TIME = Comparator.comparing(Task::getStartTime).thenComparing(Task::getId);
+
+    private final TaskStore<Task> tasks;
+    private final TaskStore<Epic> epics;
+    private final TaskStore<Subtask> subtasks;
+    private final HistoryManager historyManager;
+    private final NavigableSet<Task> timedTasks;
+    private final SnapshotCache<Task> prioritized;
+    private final AtomicInteger generatorId = new AtomicInteger();
+    private final ChangeLog changeLog = Managers.newChangeLog();
+    private final AtomicLongArray versions = new AtomicLongArray(TaskType.values().length);
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, false);
+    }
+
+    /**
+     * @param concurrent хранилища и индекс по времени, которые читаются без блокировок во время изменений;
+     *                   сами изменения наследник защищает своими блокировками
+     */
+    protected InMemoryTaskManager(HistoryManager historyManager, boolean concurrent) {
+        this.historyManager = historyManager;
+        tasks = concurrent ? TaskStore.concurrent() : TaskStore.plain();
+        epics = concurrent ? TaskStore.concurrent() : TaskStore.plain();
+        subtasks = concurrent ? TaskStore.concurrent() : TaskStore.plain();
+        timedTasks = concurrent ? new ConcurrentSkipListSet<>(BY_START_TIME) : new TreeSet<>(BY_START_TIME);
+        prioritized = new SnapshotCache<>(() -> new ArrayList<>(timedTasks));
+    }
+
+    /**
+     * Списки задач — неизменяемые снимки: пока хранилище не менялось, вызов возвращает тот же список без копирования.
+     */
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(timedTasks);
+        return prioritized.get();
     }
 
     public boolean hasAnyCrossing() {
-        List<Task> tasks = getPrioritizedTasks();
+        Task prev = null;
+        for (Task task : timedTasks) {
+            if (prev != null && isCrossing(prev, task)) {
+                return true;
+            }
+            prev = task;
+        }
+        return false;
+    }
+
+    @Override
+    public long getVersion() {
+        return changeLog.version();
+    }
+
+    @Override
+    public long getVersion(TaskType type) {
+        return versions.get(type.ordinal());
+    }
+
+    @Override
+    public long getEpoch() {
+        return changeLog.epoch();
+    }
 
-        return IntStream.range(0, tasks.size() - 1).anyMatch(i -> isCrossing(tasks.get(i), tasks.get(i + 1)));
+    @Override
+    public ChangeLog.Changes getChanges(long epoch, long since) {
+        return changeLog.since(epoch, since);
     }
 
     @Override
-    public ArrayList<Task> getTasks() {
-        return new ArrayList<>(this.tasks.values());
+    public List<Task> getTasks() {
+        return tasks.snapshot();
     }
 
     @Override
-    public ArrayList<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+    public List<Subtask> getSubtasks() {
+        return subtasks.snapshot();
     }
 
     @Override
-    public ArrayList<Epic> getEpics() {
-        return new ArrayList<>(epics.values());
+    public List<Epic> getEpics() {
+        return epics.snapshot();
     }
 
     @Override
@@ -53,7 +104,9 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Epic not found: " + epicId);
         }
-        return epic.getSubtaskIds().stream().map(subtasks::get).collect(Collectors.toList());
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        epic.forEachSubtaskId(subtaskId -> result.add(subtasks.get(subtaskId)));
+        return result;
     }
 
     public Task getTask(int id) {
@@ -81,8 +134,9 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Epic not found: " + epicId);
         }
-        historyManager.addTask(epic);
-        return epic;
+        Epic view = exposed(epic);
+        historyManager.addTask(view);
+        return view;
     }
 
     @Override
@@ -106,33 +160,33 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Optional<Epic> getOptionalEpic(int id) {
         Epic epic = epics.get(id);
-        if (epic != null) {
-            historyManager.addTask(epic);
+        if (epic == null) {
+            return Optional.empty();
         }
-        return Optional.ofNullable(epic);
+        Epic view = exposed(epic);
+        historyManager.addTask(view);
+        return Optional.of(view);
     }
 
     @Override
     public int addNewTask(Task task) {
-        task.setId(++generatorId);
+        task.setId(generatorId.incrementAndGet());
         return addTaskCommon(task);
     }
 
     protected int addFileTask(Task task) {
-        if (task.getId() > generatorId)
-            generatorId = task.getId();
+        generatorId.accumulateAndGet(task.getId(), Math::max);
         return addTaskCommon(task);
     }
 
     @Override
     public int addNewEpic(Epic epic) {
-        epic.setId(++generatorId);
+        epic.setId(generatorId.incrementAndGet());
         return addEpicCommon(epic);
     }
 
     protected int addFileEpic(Epic epic) {
-        if (epic.getId() > generatorId)
-            generatorId = epic.getId();
+        generatorId.accumulateAndGet(epic.getId(), Math::max);
         return addEpicCommon(epic);
     }
 
@@ -143,7 +197,7 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Epic not found: " + epicId);
         }
-        subtask.setId(++generatorId);
+        subtask.setId(generatorId.incrementAndGet());
         return addSubtaskCommon(subtask, epic);
     }
 
@@ -153,11 +207,73 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             throw new NotFoundException("Epic not found: " + epicId);
         }
-        if (subtask.getId() > generatorId)
-            generatorId = subtask.getId();
+        generatorId.accumulateAndGet(subtask.getId(), Math::max);
         return addSubtaskCommon(subtask, epic);
     }
 
+    protected boolean contains(int id) {
+        return tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id);
+    }
+
+    /**
+     * @return подзадача из хранилища без записи в историю или null
+     */
+    protected Subtask storedSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    /**
+     * Эпик меняется на месте, когда меняются его подзадачи; наследник может отдавать читателям и истории копию.
+     */
+    protected Epic exposed(Epic epic) {
+        return epic;
+    }
+
+    /**
+     * Массовая загрузка из файла: задачи кладутся в хранилища без проверок, а индекс по времени,
+     * проверка пересечений и поля эпиков строятся один раз в конце.
+     */
+    protected void addFileTasks(List<Task> loaded) {
+        for (Task task : loaded) {
+            if (task instanceof Epic epic) {
+                epic.setInManager();
+                epics.put(epic.getId(), epic);
+                generatorId.accumulateAndGet(epic.getId(), Math::max);
+            }
+        }
+        List<Task> timed = new ArrayList<>();
+        for (Task task : loaded) {
+            if (task instanceof Epic) {
+                continue;
+            }
+            int id = task.getId();
+            if (task instanceof Subtask subtask) {
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    throw new NotFoundException("Epic not found: " + subtask.getEpicId());
+                }
+                subtasks.put(id, subtask);
+                epic.putSubtask(subtask);
+            } else {
+                tasks.put(id, task);
+            }
+            task.setInManager();
+            generatorId.accumulateAndGet(id, Math::max);
+            if (task.getStartTime() != null) {
+                timed.add(task);
+            }
+        }
+        timedTasks.addAll(timed);
+        prioritized.invalidate();
+        long version = changeLog.reset();
+        for (int i = 0; i < versions.length(); i++) {
+            versions.set(i, version);
+        }
+        if (hasAnyCrossing()) {
+            throw new IllegalStateException("Задачи пересекаются по времени");
+        }
+    }
+
     @Override
     public void updateTask(Task task) {
         final int id = task.getId();
@@ -165,16 +281,10 @@ public class InMemoryTaskManager implements TaskManager {
         if (old == null) {
             throw new NotFoundException("Task not found: " + id);
         }
-        timedTasks.remove(old);
-        addToTimedTasks(task);
-        if (hasAnyCrossing()) {
-            timedTasks.remove(task);
-            addToTimedTasks(old);
-            throw new IllegalStateException("Задачи пересекаются по времени");
-        }
-
+        replaceInTimeIndex(old, task);
         task.setInManager();
         tasks.put(id, task);
+        changed(TaskType.task, id, ChangeLog.Kind.UPDATED);
     }
 
     @Override
@@ -186,6 +296,7 @@ public class InMemoryTaskManager implements TaskManager {
         }
         savedEpic.setName(epic.getName());
         savedEpic.setDescription(epic.getDescription());
+        changed(TaskType.epic, epicId, ChangeLog.Kind.UPDATED);
     }
 
     @Override
@@ -200,17 +311,16 @@ public class InMemoryTaskManager implements TaskManager {
         if (savedEpic == null) {
             throw new NotFoundException("Epic not found: " + epicId);
         }
-        timedTasks.remove(oldSubtask);
-        addToTimedTasks(subtask);
-        if (hasAnyCrossing()) {
-            timedTasks.remove(subtask);
-            addToTimedTasks(oldSubtask);
-            throw new IllegalStateException("Подзадачи пересекаются по времени");
-        }
+        replaceInTimeIndex(oldSubtask, subtask);
         subtask.setInManager();
         subtasks.put(id, subtask);
-        updateEpicTime(savedEpic);
-        updateEpicStatus(epicId);
+        changed(TaskType.subTask, id, ChangeLog.Kind.UPDATED);
+        if (oldSubtask.getEpicId() != epicId) {
+            epics.get(oldSubtask.getEpicId()).removeSubtask(id);
+            changed(TaskType.epic, oldSubtask.getEpicId(), ChangeLog.Kind.UPDATED);
+        }
+        savedEpic.putSubtask(subtask);
+        changed(TaskType.epic, epicId, ChangeLog.Kind.UPDATED);
     }
 
     @Override
@@ -219,8 +329,9 @@ public class InMemoryTaskManager implements TaskManager {
         if (task == null) {
             throw new NotFoundException("Task not found: " + id);
         }
-        timedTasks.remove(task);
+        removeFromTimedTasks(task);
         historyManager.remove(id);
+        changed(TaskType.task, id, ChangeLog.Kind.DELETED);
     }
 
     @Override
@@ -230,13 +341,15 @@ public class InMemoryTaskManager implements TaskManager {
             throw new NotFoundException("Epic not found: " + id);
         }
         historyManager.remove(id);
-        for (Integer subtaskId : epic.getSubtaskIds()) {
+        changed(TaskType.epic, id, ChangeLog.Kind.DELETED);
+        epic.forEachSubtaskId(subtaskId -> {
             Subtask subtask = subtasks.remove(subtaskId);
             if (subtask != null) {
-                timedTasks.remove(subtask);
+                removeFromTimedTasks(subtask);
                 historyManager.remove(subtaskId);
+                changed(TaskType.subTask, subtaskId, ChangeLog.Kind.DELETED);
             }
-        }
+        });
     }
 
     @Override
@@ -245,37 +358,64 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtask == null) {
             throw new NotFoundException("subtask not found: " + id);
         }
-        timedTasks.remove(subtask);
+        removeFromTimedTasks(subtask);
         Epic epic = epics.get(subtask.getEpicId());
         epic.removeSubtask(id);
         historyManager.remove(id);
-        updateEpicTime(epic);
-        updateEpicStatus(epic.getId());
-
+        changed(TaskType.subTask, id, ChangeLog.Kind.DELETED);
+        changed(TaskType.epic, epic.getId(), ChangeLog.Kind.UPDATED);
     }
 
+    // массовые удаления не вызывают deleteX по одному: один проход по хранилищу, а наследник сохраняет файл один раз
     @Override
     public void deleteTasks() {
+        tasks.forEachKey(id -> {
+            historyManager.remove(id);
+            changed(TaskType.task, id, ChangeLog.Kind.DELETED);
+        });
         tasks.clear();
-        historyManager.clear();
+        timedTasks.removeIf(task -> !(task instanceof Subtask));
+        prioritized.invalidate();
     }
 
     @Override
     public void deleteSubtasks() {
-        epics.values().stream().peek(Epic::cleanSubtaskIds).forEach(epic -> updateEpicStatus(epic.getId()));
-
-        new ArrayList<>(subtasks.keySet()).stream().forEach(this::deleteSubtask);
+        clearSubtasks();
+        epics.forEachValue(epic -> {
+            if (epic.getSubtaskCount() > 0) {
+                epic.cleanSubtaskIds();
+                changed(TaskType.epic, epic.getId(), ChangeLog.Kind.UPDATED);
+            }
+        });
+    }
 
-        subtasks.clear();
+    /**
+     * Удаляет подзадачи одного эпика; нужен наследнику, который удаляет подзадачи по эпикам под их блокировками.
+     */
+    protected void deleteSubtasksOf(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null || epic.getSubtaskCount() == 0) {
+            return;
+        }
+        epic.forEachSubtaskId(subtaskId -> {
+            Subtask subtask = subtasks.remove(subtaskId);
+            if (subtask != null) {
+                removeFromTimedTasks(subtask);
+                historyManager.remove(subtaskId);
+                changed(TaskType.subTask, subtaskId, ChangeLog.Kind.DELETED);
+            }
+        });
+        epic.cleanSubtaskIds();
+        changed(TaskType.epic, epicId, ChangeLog.Kind.UPDATED);
     }
 
     @Override
     public void deleteEpics() {
-        new ArrayList<>(epics.keySet()).stream().forEach(this::deleteEpic);
-
-        new ArrayList<>(subtasks.keySet()).stream().forEach(this::deleteSubtask);
-
-        subtasks.clear();
+        clearSubtasks();
+        epics.forEachKey(id -> {
+            historyManager.remove(id);
+            changed(TaskType.epic, id, ChangeLog.Kind.DELETED);
+        });
         epics.clear();
     }
 
@@ -284,50 +424,79 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    private void addToTimedTasks(Task task) {
-        if (task.getStartTime() != null) {
-            timedTasks.add(task);
-        }
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        return historyManager.getHistory(offset, limit);
     }
 
-    private void updateEpicTime(Epic epic) {
-        List<Integer> subIds = epic.getSubtaskIds();
-        if (subIds.isEmpty()) {
-            epic.setDuration(Duration.ZERO);
-            epic.setStartTime(null);
-            epic.setEndTime(null);
-            return;
-        }
-        List<Subtask> subs = subIds.stream().map(subtasks::get).toList();
+    @Override
+    public long getHistoryModCount() {
+        return historyManager.getModCount();
+    }
 
-        epic.setDuration(subs.stream().map(Subtask::getDuration).filter(Objects::nonNull).reduce(Duration.ZERO, Duration::plus));
+    private void clearSubtasks() {
+        subtasks.forEachKey(id -> {
+            historyManager.remove(id);
+            changed(TaskType.subTask, id, ChangeLog.Kind.DELETED);
+        });
+        subtasks.clear();
+        timedTasks.removeIf(Subtask.class::isInstance);
+        prioritized.invalidate();
+    }
 
-        epic.setStartTime(subs.stream().map(Subtask::getStartTime).filter(Objects::nonNull).min(LocalDateTime::compareTo).orElse(null));
+    // номер изменения коллекции — версия последней записи журнала о задаче этого типа;
+    // max — чтобы параллельные писатели не откатили версию коллекции назад
+    private void changed(TaskType type, int id, ChangeLog.Kind kind) {
+        versions.accumulateAndGet(type.ordinal(), changeLog.append(type, id, kind), Math::max);
+    }
 
-        epic.setEndTime(subs.stream().map(Subtask::getEndTime).filter(Objects::nonNull).max(LocalDateTime::compareTo).orElse(null));
+    /**
+     * Добавляет задачу в индекс по времени; если она пересекается с соседями, индекс остаётся прежним.
+     */
+    protected void addToTimeIndex(Task task) {
+        addToTimedTasks(task);
+        if (hasCrossing(task)) {
+            removeFromTimedTasks(task);
+            throw new IllegalStateException("Задачи пересекаются по времени");
+        }
     }
 
-    private void updateEpicStatus(int epicId) {
-        Epic epic = epics.get(epicId);
-        List<Integer> subs = epic.getSubtaskIds();
-        if (subs.isEmpty()) {
-            epic.setStatus(NEW);
-            return;
+    /**
+     * Заменяет в индексе по времени прежнюю версию задачи новой; при пересечении возвращает прежнюю.
+     */
+    protected void replaceInTimeIndex(Task old, Task task) {
+        removeFromTimedTasks(old);
+        addToTimedTasks(task);
+        if (hasCrossing(task)) {
+            removeFromTimedTasks(task);
+            addToTimedTasks(old);
+            throw new IllegalStateException("Задачи пересекаются по времени");
         }
-        Set<TaskStatus> statuses = epic.getSubtaskIds().stream().map(subtasks::get).map(Subtask::getStatus).collect(Collectors.toSet());
+    }
 
-        // если только NEW
-        if (statuses.size() == 1 && statuses.contains(NEW)) {
-            epic.setStatus(NEW);
-            return;
+    // компаратор timedTasks не принимает задачи без startTime
+    private void removeFromTimedTasks(Task task) {
+        if (task.getStartTime() != null) {
+            timedTasks.remove(task);
+            prioritized.invalidate();
         }
+    }
 
-        if (statuses.size() == 1 && statuses.contains(DONE)) {
-            epic.setStatus(DONE);
-            return;
+    private void addToTimedTasks(Task task) {
+        if (task.getStartTime() != null) {
+            timedTasks.add(task);
+            prioritized.invalidate();
         }
+    }
 
-        epic.setStatus(IN_PROGRESS);
+    // timedTasks отсортирован и без пересечений, поэтому новую задачу достаточно сравнить с соседями
+    private boolean hasCrossing(Task task) {
+        if (task.getStartTime() == null) {
+            return false;
+        }
+        Task lower = timedTasks.lower(task);
+        Task higher = timedTasks.higher(task);
+        return (lower != null && isCrossing(lower, task)) || (higher != null && isCrossing(task, higher));
     }
 
     private boolean isCrossing(Task task1, Task task2) {
@@ -340,17 +509,13 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     private Integer addSubtaskCommon(Subtask subtask, Epic epic) {
-        addToTimedTasks(subtask);
-        if (hasAnyCrossing()) {
-            timedTasks.remove(subtask);
-            throw new IllegalStateException("Задачи пересекаются по времени");
-        }
+        addToTimeIndex(subtask);
         int id = subtask.getId();
         subtask.setInManager();
         subtasks.put(id, subtask);
-        epic.addSubtaskId(id);
-        updateEpicTime(epic);
-        updateEpicStatus(epic.getId());
+        epic.putSubtask(subtask);
+        changed(TaskType.subTask, id, ChangeLog.Kind.CREATED);
+        changed(TaskType.epic, epic.getId(), ChangeLog.Kind.UPDATED);
         return id;
     }
 
@@ -358,18 +523,16 @@ public class InMemoryTaskManager implements TaskManager {
         int id = epic.getId();
         epic.setInManager();
         epics.put(id, epic);
+        changed(TaskType.epic, id, ChangeLog.Kind.CREATED);
         return id;
     }
 
     private int addTaskCommon(Task task) {
-        addToTimedTasks(task);
-        if (hasAnyCrossing()) {
-            timedTasks.remove(task);
-            throw new IllegalStateException("Задачи пересекаются по времени");
-        }
+        addToTimeIndex(task);
         int id = task.getId();
         task.setInManager();
         tasks.put(id, task);
+        changed(TaskType.task, id, ChangeLog.Kind.CREATED);
         return id;
     }
 }
@@ -0,0 +1,60 @@
+package ru.yandex.javacourse.schedule.manager;
+
+/**
+ * Настройки журнала FileBackedTaskManager.
+ * При групповой фиксации записи, пришедшие в течение commitWindowMillis (или до commitBatchSize штук),
+ * сбрасываются на диск одним вызовом force().
+ */
+public class JournalConfig {
+    public static final int DEFAULT_COMPACT_THRESHOLD = 1000;
+
+    private final int compactThreshold;
+    private final SyncMode syncMode;
+    private final long commitWindowMillis;
+    private final int commitBatchSize;
+
+    public JournalConfig(int compactThreshold, SyncMode syncMode, long commitWindowMillis, int commitBatchSize) {
+        if (compactThreshold <= 0 || commitBatchSize <= 0 || commitWindowMillis < 0) {
+            throw new IllegalArgumentException("Некорректные настройки журнала");
+        }
+        this.compactThreshold = compactThreshold;
+        this.syncMode = syncMode;
+        this.commitWindowMillis = commitWindowMillis;
+        this.commitBatchSize = commitBatchSize;
+    }
+
+    public static JournalConfig defaults() {
+        return new JournalConfig(DEFAULT_COMPACT_THRESHOLD, SyncMode.NONE, 0, 1);
+    }
+
+    public int getCompactThreshold() {
+        return compactThreshold;
+    }
+
+    public SyncMode getSyncMode() {
+        return syncMode;
+    }
+
+    public long getCommitWindowMillis() {
+        return commitWindowMillis;
+    }
+
+    public int getCommitBatchSize() {
+        return commitBatchSize;
+    }
+
+    public enum SyncMode {
+        /**
+         * Без force(): данные остаются в кэше ОС.
+         */
+        NONE,
+        /**
+         * Операция возвращается только после того, как её запись сброшена на диск.
+         */
+        SYNC,
+        /**
+         * Операция возвращается сразу, запись сбрасывается на диск вместе с группой в фоне.
+         */
+        ASYNC
+    }
+}
@@ -1,5 +1,8 @@
 package ru.yandex.javacourse.schedule.manager;
 
+import java.time.Duration;
+import java.util.function.Supplier;
+
 /**
  * Default managers.
  *
@@ -10,11 +13,69 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    /**
+     * Менеджер для HTTP-сервера: у каждого клиента своя история (см. {@link #partitioned(Supplier)}).
+     *
+     * @param concurrent нужен ли потокобезопасный менеджер (несколько потоков-обработчиков)
+     */
+    public static TaskManager getForServer(boolean concurrent) {
+        if (concurrent) {
+            // ключ клиента берётся в потоке запроса, поэтому буферы ConcurrentHistoryManager — внутри каждой истории клиента
+            return new ConcurrentTaskManager(partitioned(() -> new ConcurrentHistoryManager(newHistory())));
+        }
+        return new InMemoryTaskManager(partitioned(Managers::newHistory));
+    }
+
     public static HistoryManager getDefaultHistory() {
-        return new InMemoryHistoryManager();
+        return newHistory();
+    }
+
+    /**
+     * История, разделённая по клиентам; число историй задаёт свойство history.partitions,
+     * время жизни неиспользуемой истории — history.idleMinutes.
+     */
+    static HistoryManager partitioned(Supplier<HistoryManager> factory) {
+        int partitions = Integer.getInteger("history.partitions", PartitionedHistoryManager.DEFAULT_MAX_PARTITIONS);
+        long idleMinutes = Long.getLong("history.idleMinutes", PartitionedHistoryManager.DEFAULT_IDLE_TIMEOUT.toMinutes());
+        return new PartitionedHistoryManager(factory, partitions, Duration.ofMinutes(idleMinutes));
+    }
+
+    /**
+     * История одного клиента: реализация выбирается свойством history.type (linked или array),
+     * размер — history.maxSize.
+     */
+    static HistoryManager newHistory() {
+        int maxSize = Integer.getInteger("history.maxSize", InMemoryHistoryManager.DEFAULT_MAX_SIZE);
+        if ("array".equals(System.getProperty("history.type"))) {
+            return new ArrayHistoryManager(maxSize);
+        }
+        return new InMemoryHistoryManager(maxSize);
+    }
+
+    /**
+     * Журнал изменений для GET /changes; число хранимых записей задаёт свойство changes.capacity.
+     */
+    static ChangeLog newChangeLog() {
+        return new ChangeLog(Integer.getInteger("changes.capacity", ChangeLog.DEFAULT_CAPACITY));
     }
 
     public static FileBackedTaskManager loadFromFile(String fileName) {
         return new FileBackedTaskManager(fileName);
     }
+
+    public static FileBackedTaskManager loadFromFile(String fileName, FileBackedTaskManager.SnapshotFormat format) {
+        return new FileBackedTaskManager(fileName, format, null);
+    }
+
+    public static FileBackedTaskManager loadFromJournal(String fileName) {
+        return loadFromJournal(fileName, JournalConfig.defaults());
+    }
+
+    public static FileBackedTaskManager loadFromJournal(String fileName, JournalConfig journalConfig) {
+        return new FileBackedTaskManager(fileName, journalConfig);
+    }
 }
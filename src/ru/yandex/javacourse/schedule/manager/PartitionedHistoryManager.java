@@ -0,0 +1,262 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * История, разделённая по клиентам: у каждого ключа клиента своя ограниченная история из фабрики.
+ * Ключ текущего клиента задаётся для потока через setCurrentClient (HTTP-обработчики берут его из заголовка
+ * X-Client-Id или параметра client); без ключа используется общая история DEFAULT_CLIENT.
+ * Число историй клиентов ограничено maxPartitions: при переполнении вытесняется давно не использованная,
+ * а истории, к которым не обращались дольше idleTimeout, периодически убираются при обращениях к менеджеру.
+ * Общая история не вытесняется и в лимит не входит. Лимит — на число историй, а не на число записей:
+ * всего хранится не больше (maxPartitions + 1) × размер одной истории из фабрики.
+ * Удаление задачи и очистка применяются ко всем историям; чтобы удаление не обходило все истории,
+ * для каждой задачи запоминаются ключи клиентов, в истории которых она есть. Ключ добавляется до просмотра,
+ * а убирается, когда история клиента сама вытесняет задачу (через HistoryListener) или выбрасывается целиком,
+ * поэтому индекс не растёт сверх суммарного размера историй.
+ * Счётчик изменений у каждой истории берётся из общей последовательности, поэтому история, созданная заново
+ * после вытеснения, не повторит счётчик прежней.
+ */
+public class PartitionedHistoryManager implements HistoryManager {
+    public static final String DEFAULT_CLIENT = "";
+    public static final int DEFAULT_MAX_PARTITIONS = 1024;
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>();
+
+    private final Supplier<HistoryManager> factory;
+    private final int maxPartitions;
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+    // поиск истории без блокировки; создание, вытеснение и уборка — под монитором менеджера
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final Partition shared;
+    // id задачи -> ключи клиентов, в истории которых она могла остаться
+    private final ConcurrentMap<Integer, Set<String>> viewers = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+    private volatile long nextSweep;
+
+    public PartitionedHistoryManager(Supplier<HistoryManager> factory) {
+        this(factory, DEFAULT_MAX_PARTITIONS, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public PartitionedHistoryManager(Supplier<HistoryManager> factory, int maxPartitions, Duration idleTimeout) {
+        this(factory, maxPartitions, idleTimeout, System::nanoTime);
+    }
+
+    PartitionedHistoryManager(Supplier<HistoryManager> factory, int maxPartitions, Duration idleTimeout, LongSupplier clock) {
+        if (maxPartitions <= 0) {
+            throw new IllegalArgumentException("Число историй должно быть положительным: " + maxPartitions);
+        }
+        this.factory = factory;
+        this.maxPartitions = maxPartitions;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+        this.nextSweep = clock.getAsLong() + idleTimeoutNanos;
+        this.shared = newPartition(DEFAULT_CLIENT, this.nextSweep);
+    }
+
+    public static void setCurrentClient(String client) {
+        if (client == null || client.isEmpty()) {
+            CURRENT_CLIENT.remove();
+        } else {
+            CURRENT_CLIENT.set(client);
+        }
+    }
+
+    public static String getCurrentClient() {
+        String client = CURRENT_CLIENT.get();
+        return client == null ? DEFAULT_CLIENT : client;
+    }
+
+    /**
+     * @return число историй клиентов без общей
+     */
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        Partition partition = partition(false);
+        return partition == null ? new ArrayList<>() : partition.history.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Некорректная страница истории: offset=" + offset + ", limit=" + limit);
+        }
+        Partition partition = partition(false);
+        return partition == null ? new ArrayList<>() : partition.history.getHistory(offset, limit);
+    }
+
+    @Override
+    public void addTask(Task task) {
+        if (task == null) {
+            return;
+        }
+        Partition partition = partition(true);
+        // ключ запоминается до просмотра, чтобы параллельное удаление задачи нашло эту историю
+        Set<String> clients = viewers.get(task.getId());
+        if (clients == null) {
+            clients = viewers.computeIfAbsent(task.getId(), id -> ConcurrentHashMap.newKeySet());
+        }
+        clients.add(getCurrentClient());
+        partition.history.addTask(task);
+        partition.modCount = modifications.incrementAndGet();
+    }
+
+    @Override
+    public void remove(int id) {
+        Set<String> clients = viewers.remove(id);
+        if (clients == null) {
+            return;
+        }
+        for (String client : clients) {
+            Partition partition = client.equals(DEFAULT_CLIENT) ? shared : partitions.get(client);
+            if (partition != null) {
+                partition.history.remove(id);
+                partition.modCount = modifications.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        viewers.clear();
+        shared.history.clear();
+        shared.modCount = modifications.incrementAndGet();
+        for (Partition partition : partitions.values()) {
+            partition.history.clear();
+            partition.modCount = modifications.incrementAndGet();
+        }
+    }
+
+    @Override
+    public long getModCount() {
+        Partition partition = partition(false);
+        return partition == null ? 0 : partition.modCount;
+    }
+
+    private Partition partition(boolean create) {
+        long now = clock.getAsLong();
+        if (now - nextSweep >= 0) {
+            sweepIdle(now);
+        }
+        String client = getCurrentClient();
+        if (client.equals(DEFAULT_CLIENT)) {
+            return shared;
+        }
+        Partition partition = partitions.get(client);
+        if (partition == null) {
+            if (!create) {
+                return null;
+            }
+            partition = createPartition(client, now);
+        }
+        partition.lastAccess = now;
+        return partition;
+    }
+
+    private synchronized Partition createPartition(String client, long now) {
+        Partition partition = partitions.get(client);
+        if (partition != null) {
+            return partition;
+        }
+        if (partitions.size() >= maxPartitions) {
+            sweepIdle(now);
+        }
+        if (partitions.size() >= maxPartitions) {
+            // вытесняем давно не использованную; поиск линейный, но только при создании сверх лимита
+            String eldest = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+                if (eldest == null || entry.getValue().lastAccess - eldestAccess < 0) {
+                    eldest = entry.getKey();
+                    eldestAccess = entry.getValue().lastAccess;
+                }
+            }
+            forget(eldest, partitions.remove(eldest));
+        }
+        partition = newPartition(client, now);
+        partitions.put(client, partition);
+        return partition;
+    }
+
+    private synchronized void sweepIdle(long now) {
+        partitions.entrySet().removeIf(entry -> {
+            if (now - entry.getValue().lastAccess <= idleTimeoutNanos) {
+                return false;
+            }
+            forget(entry.getKey(), entry.getValue());
+            return true;
+        });
+        nextSweep = now + Math.max(1, idleTimeoutNanos / 4);
+    }
+
+    /**
+     * @return число задач в индексе просмотревших клиентов
+     */
+    int getIndexedTaskCount() {
+        return viewers.size();
+    }
+
+    private Partition newPartition(String client, long now) {
+        Partition partition = new Partition(client, factory.get(), now);
+        partition.history.setListener(partition);
+        return partition;
+    }
+
+    // убирает ключ выброшенной истории из индекса по задачам, которые в ней остались
+    private void forget(String client, Partition partition) {
+        // просмотры, которые история допишет позже (например, из буферов), в индекс уже не попадут
+        partition.dropped = true;
+        for (Task task : partition.history.getHistory()) {
+            forget(client, task.getId());
+        }
+    }
+
+    private void forget(String client, int taskId) {
+        viewers.computeIfPresent(taskId, (id, clients) -> {
+            clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    private class Partition implements HistoryListener {
+        final String client;
+        final HistoryManager history;
+        volatile long lastAccess;
+        volatile long modCount;
+        volatile boolean dropped;
+
+        Partition(String client, HistoryManager history, long lastAccess) {
+            this.client = client;
+            this.history = history;
+            this.lastAccess = lastAccess;
+        }
+
+        @Override
+        public void added(int id) {
+            if (!dropped) {
+                viewers.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(client);
+            }
+        }
+
+        @Override
+        public void evicted(int id) {
+            forget(client, id);
+        }
+    }
+}
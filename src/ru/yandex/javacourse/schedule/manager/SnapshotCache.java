@@ -0,0 +1,43 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Неизменяемый снимок коллекции, который пересобирается только после изменений.
+ * Писатель после каждого изменения вызывает invalidate(), читатель без изменений получает готовый снимок за O(1).
+ * Снимок помечается версией, прочитанной до сборки, поэтому снимок, собранный во время параллельного изменения,
+ * после этого изменения не выдаётся.
+ */
+class SnapshotCache<T> {
+    private final Supplier<List<T>> source;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * @param source возвращает новую копию коллекции
+     */
+    SnapshotCache(Supplier<List<T>> source) {
+        this.source = source;
+    }
+
+    List<T> get() {
+        long current = version.get();
+        Snapshot<T> cached = snapshot;
+        if (cached != null && cached.version == current) {
+            return cached.items;
+        }
+        List<T> items = Collections.unmodifiableList(source.get());
+        snapshot = new Snapshot<>(current, items);
+        return items;
+    }
+
+    void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private record Snapshot<T>(long version, List<T> items) {
+    }
+}
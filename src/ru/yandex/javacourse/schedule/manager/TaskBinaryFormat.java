@@ -0,0 +1,278 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.exceptions.ManagerLoadException;
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Двоичный формат снимка.
+ * <pre>
+ * "KNBN" | версия (1 байт) | поколение журнала (varint, с версии 2) | число записей (varint) | записи
+ *        | CRC32 всего предыдущего (4 байта)
+ * запись: тип (ordinal) | id (varint) | статус (ordinal, 0xFF — null) | флаги | имя | описание
+ *         | [начало: секунды эпохи UTC (zigzag varint), наносекунды (varint)] | [длительность в секундах (zigzag varint)]
+ *         | [конец эпика: как начало] | [id эпика у подзадачи (varint)]
+ * строка: длина + 1 (varint, 0 — null) | байты UTF-8
+ * </pre>
+ * Поколение журнала — последнее поколение {@link TaskJournal}, записи которого уже вошли в снимок.
+ * Та же кодировка записи используется в записях журнала.
+ */
+public class TaskBinaryFormat {
+    public static final int VERSION = 2;
+    private static final byte[] MAGIC = {'K', 'N', 'B', 'N'};
+    private static final int HAS_START = 1;
+    private static final int HAS_DURATION = 2;
+    private static final int HAS_END = 4;
+    private static final int NO_STATUS = 0xFF;
+
+    private TaskBinaryFormat() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        if (data.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static void write(OutputStream target, Collection<? extends Task> tasks) throws IOException {
+        write(target, tasks, 0);
+    }
+
+    public static void write(OutputStream target, Collection<? extends Task> tasks, long journalGeneration) throws IOException {
+        CheckedOutputStream out = new CheckedOutputStream(target, new CRC32());
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, journalGeneration);
+        writeVarLong(out, tasks.size());
+        for (Task task : tasks) {
+            writeTask(out, task);
+        }
+        int crc = (int) out.getChecksum().getValue();
+        target.write(crc >>> 24);
+        target.write(crc >>> 16);
+        target.write(crc >>> 8);
+        target.write(crc);
+        target.flush();
+    }
+
+    public static List<Task> read(byte[] data) throws IOException {
+        int contentLength = checkedLength(data);
+        Reader reader = new Reader(data, MAGIC.length + 1, contentLength);
+        if (data[MAGIC.length] >= 2) {
+            reader.varLong();
+        }
+        int count = (int) reader.varLong();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(reader.task());
+        }
+        if (reader.pos != contentLength) {
+            throw new IOException("Лишние данные в двоичном снимке");
+        }
+        return tasks;
+    }
+
+    /**
+     * @return поколение журнала, записанное в снимке; 0 для снимков версии 1
+     */
+    public static long readJournalGeneration(byte[] data) throws IOException {
+        int contentLength = checkedLength(data);
+        if (data[MAGIC.length] < 2) {
+            return 0;
+        }
+        return new Reader(data, MAGIC.length + 1, contentLength).varLong();
+    }
+
+    static Task readTask(byte[] data, int offset, int limit) throws IOException {
+        Reader reader = new Reader(data, offset, limit);
+        Task task = reader.task();
+        if (reader.pos != limit) {
+            throw new IOException("Лишние данные в записи задачи");
+        }
+        return task;
+    }
+
+    // проверяет заголовок и контрольную сумму; возвращает длину данных без неё
+    private static int checkedLength(byte[] data) throws IOException {
+        if (!isBinary(data) || data.length < MAGIC.length + 1 + 1 + 4) {
+            throw new IOException("Файл не является двоичным снимком");
+        }
+        int version = data[MAGIC.length] & 0xFF;
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+        int contentLength = data.length - 4;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, contentLength);
+        int expected = ((data[contentLength] & 0xFF) << 24) | ((data[contentLength + 1] & 0xFF) << 16)
+                | ((data[contentLength + 2] & 0xFF) << 8) | (data[contentLength + 3] & 0xFF);
+        if ((int) crc.getValue() != expected) {
+            throw new ManagerLoadException("Снимок повреждён, контрольная сумма не совпадает");
+        }
+        return contentLength;
+    }
+
+    /**
+     * Запись одной задачи без заголовка и контрольной суммы — для записей журнала.
+     */
+    static void writeTask(OutputStream out, Task task) throws IOException {
+        TaskType type = task instanceof Epic ? TaskType.epic : task instanceof Subtask ? TaskType.subTask : TaskType.task;
+        LocalDateTime endTime = type == TaskType.epic ? task.getEndTime() : null;
+        int flags = (task.getStartTime() != null ? HAS_START : 0) | (task.getDuration() != null ? HAS_DURATION : 0)
+                | (endTime != null ? HAS_END : 0);
+        out.write(type.ordinal());
+        writeVarLong(out, task.getId());
+        out.write(task.getStatus() != null ? task.getStatus().ordinal() : NO_STATUS);
+        out.write(flags);
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        if (task.getStartTime() != null) {
+            writeDateTime(out, task.getStartTime());
+        }
+        if (task.getDuration() != null) {
+            writeVarLong(out, zigzag(task.getDuration().getSeconds()));
+        }
+        if (endTime != null) {
+            writeDateTime(out, endTime);
+        }
+        if (task instanceof Subtask subtask) {
+            writeVarLong(out, subtask.getEpicId());
+        }
+    }
+
+    private static void writeDateTime(OutputStream out, LocalDateTime time) throws IOException {
+        writeVarLong(out, zigzag(time.toEpochSecond(ZoneOffset.UTC)));
+        writeVarLong(out, time.getNano());
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static class Reader {
+        private final byte[] data;
+        private final int limit;
+        private int pos;
+
+        Reader(byte[] data, int pos, int limit) {
+            this.data = data;
+            this.pos = pos;
+            this.limit = limit;
+        }
+
+        Task task() throws IOException {
+            TaskType type = TaskType.values()[ordinal(TaskType.values().length)];
+            int id = (int) varLong();
+            TaskStatus status = status();
+            int flags = readByte();
+            String name = string();
+            String description = string();
+            LocalDateTime startTime = (flags & HAS_START) != 0 ? dateTime() : null;
+            Duration duration = (flags & HAS_DURATION) != 0 ? Duration.ofSeconds(unzigzag(varLong())) : null;
+            LocalDateTime endTime = (flags & HAS_END) != 0 ? dateTime() : null;
+            switch (type) {
+                case task:
+                    return new Task(id, name, description, status, startTime, duration);
+                case epic:
+                    return new Epic(id, name, description, status, startTime, duration, endTime);
+                case subTask:
+                    return new Subtask(id, name, description, status, startTime, duration, (int) varLong());
+                default:
+                    throw new IllegalStateException("Неизвестный тип задачи: " + type);
+            }
+        }
+
+        private TaskStatus status() throws IOException {
+            if (pos < limit && (data[pos] & 0xFF) == NO_STATUS) {
+                pos++;
+                return null;
+            }
+            return TaskStatus.values()[ordinal(TaskStatus.values().length)];
+        }
+
+        private int ordinal(int bound) throws IOException {
+            int value = readByte();
+            if (value >= bound) {
+                throw new IOException("Неизвестное значение перечисления: " + value);
+            }
+            return value;
+        }
+
+        private LocalDateTime dateTime() throws IOException {
+            long seconds = unzigzag(varLong());
+            int nano = (int) varLong();
+            return LocalDateTime.ofEpochSecond(seconds, nano, ZoneOffset.UTC);
+        }
+
+        private String string() throws IOException {
+            long length = varLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > limit - pos) {
+                throw new IOException("Обрезанный двоичный снимок");
+            }
+            String value = new String(data, pos, (int) length, StandardCharsets.UTF_8);
+            pos += (int) length;
+            return value;
+        }
+
+        private long varLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Некорректное число в двоичном снимке");
+        }
+
+        private int readByte() throws IOException {
+            if (pos >= limit) {
+                throw new IOException("Обрезанный двоичный снимок");
+            }
+            return data[pos++] & 0xFF;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
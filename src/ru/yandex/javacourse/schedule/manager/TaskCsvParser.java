@@ -0,0 +1,251 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Разбор строк снимка прямо из массива байт: без split, регулярных выражений и DateTimeFormatter.
+ * Строка: id,type,name,status,description,startTime,duration,endTime[,epic]
+ * или старый формат без времени: id,type,name,status,description[,epic]
+ */
+public class TaskCsvParser {
+    private static final int MAX_FIELDS = 9;
+    private static final byte[][] TYPE_NAMES = names(TaskType.values());
+    private static final byte[][] STATUS_NAMES = names(TaskStatus.values());
+    private static final byte[] EMPTY_VALUE = "???".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] data;
+    private final int limit;
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private int pos;
+    private int fields;
+
+    public TaskCsvParser(byte[] data, int offset, int limit) {
+        this.data = data;
+        this.pos = offset;
+        this.limit = limit;
+    }
+
+    public static Task parseLine(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return new TaskCsvParser(bytes, 0, bytes.length).next();
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    public boolean hasNext() {
+        while (pos < limit && (data[pos] == '\n' || data[pos] == '\r')) {
+            pos++;
+        }
+        return pos < limit;
+    }
+
+    /**
+     * @return следующая строка целиком (для заголовка) или null, если данные закончились
+     */
+    public String nextLine() {
+        if (!hasNext()) {
+            return null;
+        }
+        int start = pos;
+        int end = lineEnd(start);
+        pos = end;
+        return new String(data, start, trimCr(start, end) - start, StandardCharsets.UTF_8);
+    }
+
+    public Task next() {
+        if (!hasNext()) {
+            return null;
+        }
+        int end = lineEnd(pos);
+        split(pos, trimCr(pos, end));
+        pos = end;
+
+        int id = parseInt(0);
+        TaskType type = TaskType.values()[match(1, TYPE_NAMES)];
+        String name = string(2);
+        TaskStatus status = TaskStatus.values()[match(3, STATUS_NAMES)];
+        String description = string(4);
+        if (type == TaskType.subTask && fields == 6) {
+            // старый формат без времени: ...,description,epic
+            return new Subtask(id, name, description, status, parseInt(5));
+        }
+        LocalDateTime startTime = dateTime(5);
+        Duration duration = isEmpty(6) ? null : Duration.ofMinutes(parseLong(6));
+        switch (type) {
+            case task:
+                return new Task(id, name, description, status, startTime, duration);
+            case epic:
+                return new Epic(id, name, description, status, startTime, duration, dateTime(7));
+            case subTask:
+                return new Subtask(id, name, description, status, startTime, duration, parseInt(8));
+            default:
+                throw new IllegalStateException("Неизвестный тип задачи: " + type);
+        }
+    }
+
+    private int lineEnd(int start) {
+        int end = start;
+        while (end < limit && data[end] != '\n') {
+            end++;
+        }
+        return end;
+    }
+
+    private int trimCr(int start, int end) {
+        return end > start && data[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    private void split(int start, int end) {
+        fields = 0;
+        int fieldBegin = start;
+        for (int i = start; i <= end && fields < MAX_FIELDS; i++) {
+            if (i == end || data[i] == ',') {
+                fieldStart[fields] = fieldBegin;
+                fieldEnd[fields] = i;
+                fields++;
+                fieldBegin = i + 1;
+            }
+        }
+    }
+
+    private void checkField(int field) {
+        if (field >= fields) {
+            throw new IllegalArgumentException("В строке нет поля " + (field + 1) + ": " + currentLine());
+        }
+    }
+
+    private String currentLine() {
+        return new String(data, fieldStart[0], fieldEnd[fields - 1] - fieldStart[0], StandardCharsets.UTF_8);
+    }
+
+    private boolean isEmpty(int field) {
+        if (field >= fields) {
+            return true;
+        }
+        return equalsBytes(fieldStart[field], fieldEnd[field], EMPTY_VALUE);
+    }
+
+    private String string(int field) {
+        checkField(field);
+        return new String(data, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8);
+    }
+
+    private int match(int field, byte[][] names) {
+        checkField(field);
+        for (int i = 0; i < names.length; i++) {
+            if (equalsBytes(fieldStart[field], fieldEnd[field], names[i])) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + string(field));
+    }
+
+    private int parseInt(int field) {
+        long value = parseLong(field);
+        if (value != (int) value) {
+            throw new NumberFormatException("Слишком большое число: " + string(field));
+        }
+        return (int) value;
+    }
+
+    private long parseLong(int field) {
+        checkField(field);
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = start < end && data[start] == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end || end - start > 18) {
+            return Long.parseLong(string(field));
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Не число: " + string(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // формат LocalDateTime.toString(): uuuu-MM-ddTHH:mm[:ss[.n…]]
+    private LocalDateTime dateTime(int field) {
+        if (isEmpty(field)) {
+            return null;
+        }
+        int s = fieldStart[field];
+        int len = fieldEnd[field] - s;
+        if (len < 16 || data[s + 4] != '-' || data[s + 7] != '-' || data[s + 10] != 'T' || data[s + 13] != ':') {
+            return LocalDateTime.parse(string(field));
+        }
+        int year = digits(s, 4);
+        int month = digits(s + 5, 2);
+        int day = digits(s + 8, 2);
+        int hour = digits(s + 11, 2);
+        int minute = digits(s + 14, 2);
+        int second = 0;
+        int nano = 0;
+        if (len > 16) {
+            if (len < 19 || data[s + 16] != ':') {
+                return LocalDateTime.parse(string(field));
+            }
+            second = digits(s + 17, 2);
+            if (len > 19) {
+                int fraction = len - 20;
+                if (data[s + 19] != '.' || fraction < 1 || fraction > 9) {
+                    return LocalDateTime.parse(string(field));
+                }
+                nano = digits(s + 20, fraction);
+                for (int i = fraction; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if ((year | month | day | hour | minute | second | nano) < 0) {
+            return LocalDateTime.parse(string(field));
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    // -1, если среди байт есть не цифра
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private boolean equalsBytes(int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (data[start + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] result = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,319 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений: одна запись на операцию, запись только в конец файла.
+ * <pre>
+ * "KNBJ" | поколение (8 байт) | записи
+ * запись: длина данных (4 байта) | CRC32 данных (4 байта) | данные
+ * </pre>
+ * Поколение связывает журнал со снимком: снимок помнит поколение журнала, записи которого в него уже вошли,
+ * и такой журнал при загрузке повторно не воспроизводится. Обрезанная или повреждённая запись в конце файла
+ * (сбой посреди дописывания) при воспроизведении отбрасывается вместе со всем, что за ней.
+ * В режимах SYNC и ASYNC фоновый поток сбрасывает накопившиеся записи на диск одним force().
+ */
+public class TaskJournal implements Closeable {
+    private static final byte[] MAGIC = {'K', 'N', 'B', 'J'};
+    private static final int HEADER_SIZE = MAGIC.length + Long.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final JournalConfig config;
+    private final Thread flusher;
+    private long generation;
+    private int records;
+    private long written;
+    private long durable;
+    private long firstPendingNanos;
+    private int forces;
+    private IOException flushError;
+    private boolean closed;
+
+    public TaskJournal(Path path) throws IOException {
+        this(path, JournalConfig.defaults());
+    }
+
+    /**
+     * Открывает журнал; новый файл получает поколение 1.
+     *
+     * @throws IOException если файл существует, но не является журналом
+     */
+    public TaskJournal(Path path, JournalConfig config) throws IOException {
+        this.path = path;
+        this.config = config;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                channel.truncate(0);
+                writeHeader(1);
+            } else {
+                generation = readHeader();
+            }
+            channel.position(channel.size());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (config.getSyncMode() == JournalConfig.SyncMode.NONE) {
+            flusher = null;
+        } else {
+            flusher = new Thread(this::flushLoop, "journal-flusher-" + path.getFileName());
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Передаёт записи по порядку. Если последняя запись обрезана или не сходится её контрольная сумма,
+     * файл укорачивается до последней целой записи.
+     */
+    public synchronized void replay(Consumer<byte[]> consumer) throws IOException {
+        long size = channel.size();
+        long pos = HEADER_SIZE;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        while (size - pos >= RECORD_HEADER_SIZE) {
+            header.clear();
+            readFully(header, pos);
+            int length = header.getInt(0);
+            int expected = header.getInt(Integer.BYTES);
+            if (length < 0 || length > size - pos - RECORD_HEADER_SIZE) {
+                break;
+            }
+            ByteBuffer data = ByteBuffer.allocate(length);
+            readFully(data, pos + RECORD_HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(data.array());
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            consumer.accept(data.array());
+            records++;
+            pos += RECORD_HEADER_SIZE + length;
+        }
+        if (pos < size) {
+            channel.truncate(pos);
+            channel.force(false);
+        }
+        channel.position(pos);
+    }
+
+    /**
+     * Дописывает запись; в режиме SYNC дожидается, пока группа с этой записью будет сброшена на диск.
+     */
+    public void append(byte[] record) throws IOException {
+        awaitCommit(write(record));
+    }
+
+    /**
+     * Дописывает запись, не дожидаясь сброса на диск: вызывающий может отпустить свои блокировки
+     * и только затем вызвать {@link #awaitCommit(long)}, чтобы записи других потоков попали в ту же группу.
+     *
+     * @return порядковый номер записи
+     * @throws IOException в том числе если предыдущий сброс на диск не удался: такой журнал новых записей не принимает
+     */
+    long write(byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+        buffer.putInt(record.length).putInt((int) crc.getValue()).put(record).flip();
+        long seq;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Журнал закрыт: " + path);
+            }
+            if (flushError != null) {
+                // записи после неудачного force() уже никогда не станут надёжными
+                throw new IOException("Журнал не удалось сбросить на диск: " + path, flushError);
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            records++;
+            seq = ++written;
+            if (flusher == null) {
+                return seq;
+            }
+            if (written - durable == 1) {
+                firstPendingNanos = System.nanoTime();
+            }
+            if (written - durable >= config.getCommitBatchSize()) {
+                notifyAll();
+            }
+        }
+        return seq;
+    }
+
+    /**
+     * В режиме SYNC дожидается сброса на диск записи с номером seq, в остальных режимах сразу возвращается.
+     */
+    void awaitCommit(long seq) throws IOException {
+        if (config.getSyncMode() == JournalConfig.SyncMode.SYNC) {
+            awaitDurable(seq);
+        }
+    }
+
+    /**
+     * Дожидается сброса на диск всех уже дописанных записей.
+     */
+    public void sync() throws IOException {
+        long target;
+        synchronized (this) {
+            target = written;
+            if (flusher == null) {
+                channel.force(false);
+                durable = target;
+                return;
+            }
+            notifyAll();
+        }
+        awaitDurable(target);
+    }
+
+    /**
+     * Очищает журнал и начинает поколение newGeneration; вызывается, когда записи уже попали в снимок.
+     * Заголовок сбрасывается на диск сразу, чтобы после сбоя старые записи не воспроизвелись под новым поколением.
+     */
+    public synchronized void reset(long newGeneration) throws IOException {
+        channel.truncate(0);
+        writeHeader(newGeneration);
+        channel.force(false);
+        records = 0;
+        durable = written;
+        notifyAll();
+    }
+
+    public synchronized int size() {
+        return records;
+    }
+
+    /**
+     * @return число вызовов force() фоновым потоком, то есть сброшенных на диск групп
+     */
+    synchronized int getForceCount() {
+        return forces;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.force(false);
+        channel.close();
+    }
+
+    private void writeHeader(long newGeneration) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).put(MAGIC).putLong(newGeneration).flip();
+        channel.position(0);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        generation = newGeneration;
+    }
+
+    private long readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header.get(i) != MAGIC[i]) {
+                throw new IOException("Файл не является журналом: " + path);
+            }
+        }
+        return header.getLong(MAGIC.length);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Журнал обрезан: " + path);
+            }
+        }
+    }
+
+    private synchronized void awaitDurable(long seq) throws IOException {
+        try {
+            while (durable < seq && flushError == null && !closed) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Прервано ожидание записи журнала");
+        }
+        if (flushError != null) {
+            throw flushError;
+        }
+    }
+
+    private void flushLoop() {
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(config.getCommitWindowMillis());
+        while (true) {
+            long target;
+            synchronized (this) {
+                try {
+                    long pending = written - durable;
+                    if (pending == 0) {
+                        if (closed) {
+                            return;
+                        }
+                        wait();
+                        continue;
+                    }
+                    long waitNanos = firstPendingNanos + windowNanos - System.nanoTime();
+                    if (!closed && pending < config.getCommitBatchSize() && waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    // без фонового потока ждущие сброса писатели не дождались бы его никогда
+                    flushError = new InterruptedIOException("Поток сброса журнала прерван: " + path);
+                    notifyAll();
+                    return;
+                }
+                target = written;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (this) {
+                    flushError = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                forces++;
+                durable = Math.max(durable, target);
+                if (written > durable) {
+                    firstPendingNanos = System.nanoTime();
+                }
+                notifyAll();
+            }
+        }
+    }
+}
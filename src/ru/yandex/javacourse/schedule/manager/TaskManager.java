@@ -3,6 +3,7 @@ package ru.yandex.javacourse.schedule.manager;
 import ru.yandex.javacourse.schedule.tasks.Epic;
 import ru.yandex.javacourse.schedule.tasks.Subtask;
 import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,6 +14,28 @@ import java.util.Optional;
  * @author Vladimir Ivanov (ivanov.vladimir.l@gmail.com)
  */
 public interface TaskManager {
+    /**
+     * Номер последнего изменения: растёт с каждой успешной операцией записи и не меняется при чтении.
+     * Читать его нужно до самих данных — тогда ответ не окажется помечен более новой версией, чем его содержимое.
+     */
+    long getVersion();
+
+    /**
+     * Номер последнего изменения, затронувшего задачи этого типа; изменения подзадач затрагивают и эпики.
+     */
+    long getVersion(TaskType type);
+
+    /**
+     * Эпоха версий: меняется при каждом создании менеджера, так что версии разных запусков не путаются.
+     */
+    long getEpoch();
+
+    /**
+     * Изменения с версией больше since; если часть из них уже вытеснена из журнала или since получена в другой эпохе,
+     * ответ требует полной пересинхронизации.
+     */
+    ChangeLog.Changes getChanges(long epoch, long since);
+
     List<Task> getTasks();
 
     boolean hasAnyCrossing();
@@ -62,4 +85,11 @@ public interface TaskManager {
     void deleteEpics();
 
     List<Task> getHistory();
+
+    List<Task> getHistory(int offset, int limit);
+
+    /**
+     * Счётчик изменений истории текущего клиента; просмотры не меняют версию менеджера, а этот счётчик меняют.
+     */
+    long getHistoryModCount();
 }
@@ -0,0 +1,146 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import ru.yandex.javacourse.schedule.util.IntMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Хранилище задач одного типа по id. Однопоточное лежит на IntMap; потокобезопасное — на ConcurrentHashMap,
+ * его читают без блокировок, а снимок значений пересобирается только после изменений.
+ */
+interface TaskStore<T> {
+    static <T> TaskStore<T> plain() {
+        return new Plain<>();
+    }
+
+    static <T> TaskStore<T> concurrent() {
+        return new Concurrent<>();
+    }
+
+    T get(int id);
+
+    /**
+     * @return прежнее значение или null
+     */
+    T put(int id, T value);
+
+    /**
+     * @return удалённое значение или null
+     */
+    T remove(int id);
+
+    boolean containsKey(int id);
+
+    void forEachKey(IntConsumer action);
+
+    void forEachValue(Consumer<? super T> action);
+
+    /**
+     * @return неизменяемая копия значений; повторные вызовы без изменений возвращают тот же список
+     */
+    List<T> snapshot();
+
+    void clear();
+
+    final class Plain<T> implements TaskStore<T> {
+        private final IntMap<T> map = new IntMap<>();
+
+        @Override
+        public T get(int id) {
+            return map.get(id);
+        }
+
+        @Override
+        public T put(int id, T value) {
+            return map.put(id, value);
+        }
+
+        @Override
+        public T remove(int id) {
+            return map.remove(id);
+        }
+
+        @Override
+        public boolean containsKey(int id) {
+            return map.containsKey(id);
+        }
+
+        @Override
+        public void forEachKey(IntConsumer action) {
+            map.forEachKey(action);
+        }
+
+        @Override
+        public void forEachValue(Consumer<? super T> action) {
+            map.forEachValue(action);
+        }
+
+        @Override
+        public List<T> snapshot() {
+            return map.snapshot();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+
+    final class Concurrent<T> implements TaskStore<T> {
+        private final ConcurrentMap<Integer, T> map = new ConcurrentHashMap<>();
+        // помечается устаревшим после изменения карты, поэтому снимок не отстаёт от уже завершённой записи
+        private final SnapshotCache<T> view = new SnapshotCache<>(() -> new ArrayList<>(map.values()));
+
+        @Override
+        public T get(int id) {
+            return map.get(id);
+        }
+
+        @Override
+        public T put(int id, T value) {
+            T old = map.put(id, value);
+            view.invalidate();
+            return old;
+        }
+
+        @Override
+        public T remove(int id) {
+            T old = map.remove(id);
+            if (old != null) {
+                view.invalidate();
+            }
+            return old;
+        }
+
+        @Override
+        public boolean containsKey(int id) {
+            return map.containsKey(id);
+        }
+
+        @Override
+        public void forEachKey(IntConsumer action) {
+            map.keySet().forEach(action::accept);
+        }
+
+        @Override
+        public void forEachValue(Consumer<? super T> action) {
+            map.values().forEach(action);
+        }
+
+        @Override
+        public List<T> snapshot() {
+            return view.get();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+            view.invalidate();
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package ru.yandex.javacourse.schedule.tasks;
 
+import ru.yandex.javacourse.schedule.util.IntSet;
+
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
 
 public class Epic extends Task {
-    protected ArrayList<Integer> subtaskIds = new ArrayList<>();
+    protected IntSet subtaskIds = new IntSet();
     protected LocalDateTime endTime;
+    // не сериализуется: Gson создаёт эпики без конструктора, поэтому создаётся при первом обращении
+    private transient EpicAggregates aggregates;
 
     public Epic(int id, String name, String description) {
         super(id, name, description, NEW);
@@ -51,23 +55,74 @@ public class Epic extends Task {
     }
 
     public void addSubtaskId(int id) {
-        if (!subtaskIds.contains(id) && id != this.id) {
-            subtaskIds.add(id);
+        if (id != this.id) {
+            ids().add(id);
         }
     }
 
+    /**
+     * @return копия списка id подзадач; для обхода без упаковки есть forEachSubtaskId
+     */
     public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+        return ids().toList();
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        ids().forEach(action);
+    }
+
+    public int getSubtaskCount() {
+        return ids().size();
+    }
+
+    /**
+     * @param index от 0 до getSubtaskCount() - 1; порядок id не совпадает с порядком добавления
+     */
+    public int getSubtaskId(int index) {
+        return ids().get(index);
+    }
+
+    /**
+     * Привязывает подзадачу (или заменяет её прежнюю версию) и пересчитывает статус, время и длительность эпика.
+     */
+    public void putSubtask(Subtask subtask) {
+        addSubtaskId(subtask.getId());
+        aggregates().put(subtask);
+        applyAggregates();
     }
 
     public void cleanSubtaskIds() {
-        subtaskIds.clear();
-        startTime = null;
-        endTime = null;
+        ids().clear();
+        aggregates().clear();
+        applyAggregates();
     }
 
     public void removeSubtask(int id) {
-        subtaskIds.remove(Integer.valueOf(id));
+        ids().remove(id);
+        aggregates().remove(id);
+        applyAggregates();
+    }
+
+    // у эпика из JSON без поля subtaskIds оно остаётся null
+    private IntSet ids() {
+        if (subtaskIds == null) {
+            subtaskIds = new IntSet();
+        }
+        return subtaskIds;
+    }
+
+    private EpicAggregates aggregates() {
+        if (aggregates == null) {
+            aggregates = new EpicAggregates();
+        }
+        return aggregates;
+    }
+
+    private void applyAggregates() {
+        status = aggregates.status();
+        duration = aggregates.duration();
+        startTime = aggregates.startTime();
+        endTime = aggregates.endTime();
     }
 
     @Override
@@ -0,0 +1,105 @@
+package ru.yandex.javacourse.schedule.tasks;
+
+import ru.yandex.javacourse.schedule.util.IntMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.TreeMap;
+
+/**
+ * Накопленные по подзадачам эпика значения: число подзадач в статусах NEW и DONE, суммарная длительность,
+ * самое раннее начало и самый поздний конец. Каждое изменение подзадачи обновляет их за O(log k).
+ * Вклад подзадачи запоминается при добавлении, поэтому изменение самого объекта подзадачи снаружи
+ * не ломает счётчики при последующем удалении.
+ */
+class EpicAggregates {
+    private final IntMap<Contribution> contributions = new IntMap<>();
+    private final TreeMap<LocalDateTime, Integer> starts = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> ends = new TreeMap<>();
+    private int newCount;
+    private int doneCount;
+    private Duration duration = Duration.ZERO;
+
+    void put(Subtask subtask) {
+        remove(subtask.getId());
+        LocalDateTime start = subtask.getStartTime();
+        Duration subtaskDuration = subtask.getDuration();
+        LocalDateTime end = start != null && subtaskDuration != null ? start.plus(subtaskDuration) : null;
+        Contribution contribution = new Contribution(subtask.getStatus(), start, end, subtaskDuration);
+        contributions.put(subtask.getId(), contribution);
+        if (contribution.status == TaskStatus.NEW) {
+            newCount++;
+        } else if (contribution.status == TaskStatus.DONE) {
+            doneCount++;
+        }
+        increment(starts, start);
+        increment(ends, end);
+        if (subtaskDuration != null) {
+            duration = duration.plus(subtaskDuration);
+        }
+    }
+
+    void remove(int id) {
+        Contribution contribution = contributions.remove(id);
+        if (contribution == null) {
+            return;
+        }
+        if (contribution.status == TaskStatus.NEW) {
+            newCount--;
+        } else if (contribution.status == TaskStatus.DONE) {
+            doneCount--;
+        }
+        decrement(starts, contribution.start);
+        decrement(ends, contribution.end);
+        if (contribution.duration != null) {
+            duration = duration.minus(contribution.duration);
+        }
+    }
+
+    void clear() {
+        contributions.clear();
+        starts.clear();
+        ends.clear();
+        newCount = 0;
+        doneCount = 0;
+        duration = Duration.ZERO;
+    }
+
+    TaskStatus status() {
+        int size = contributions.size();
+        if (size == newCount) {
+            return TaskStatus.NEW;
+        }
+        if (size == doneCount) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    Duration duration() {
+        return duration;
+    }
+
+    LocalDateTime startTime() {
+        return starts.isEmpty() ? null : starts.firstKey();
+    }
+
+    LocalDateTime endTime() {
+        return ends.isEmpty() ? null : ends.lastKey();
+    }
+
+    private static void increment(TreeMap<LocalDateTime, Integer> counts, LocalDateTime time) {
+        if (time != null) {
+            counts.merge(time, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> counts, LocalDateTime time) {
+        if (time != null) {
+            counts.computeIfPresent(time, (key, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    private record Contribution(TaskStatus status, LocalDateTime start, LocalDateTime end, Duration duration) {
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.Arrays;
+
+/**
+ * Отображение int → неотрицательный int на открытой адресации; отсутствие ключа обозначается MISSING.
+ * После роста таблицы put и remove ничего не выделяют.
+ */
+public class IntIntMap {
+    public static final int MISSING = -1;
+
+    private int[] keys;
+    // значение + 1, 0 — пустая ячейка
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public IntIntMap() {
+        this(8);
+    }
+
+    public IntIntMap(int expectedSize) {
+        allocate(IntMap.tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int key) {
+        return values[slot(key)] - 1;
+    }
+
+    /**
+     * @return прежнее значение или MISSING
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение должно быть неотрицательным: " + value);
+        }
+        int slot = slot(key);
+        int old = values[slot] - 1;
+        values[slot] = value + 1;
+        if (old == MISSING) {
+            keys[slot] = key;
+            if (++size > (mask + 1) / 2) {
+                resize();
+            }
+        }
+        return old;
+    }
+
+    /**
+     * @return удалённое значение или MISSING
+     */
+    public int remove(int key) {
+        int hole = slot(key);
+        int old = values[hole] - 1;
+        if (old == MISSING) {
+            return MISSING;
+        }
+        size--;
+        values[hole] = 0;
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (values[next] == 0) {
+                return old;
+            }
+            int home = IntMap.hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                values[next] = 0;
+                hole = next;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        int slot = IntMap.hash(key) & mask;
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+}
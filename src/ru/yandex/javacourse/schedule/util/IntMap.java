@@ -0,0 +1,183 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Хеш-таблица с ключами int: открытая адресация с линейным пробированием, без упаковки ключей в Integer
+ * и без объектов-узлов на каждую запись. Значения null не допускаются.
+ * Хеш тот же, что у HashMap для Integer, поэтому небольшие id обходятся по возрастанию, как и раньше.
+ * snapshot() отдаёт неизменяемый список значений, который пересобирается только после изменений.
+ */
+public class IntMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private List<V> snapshot;
+
+    public IntMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    public IntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return values[slot(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        return (V) values[slot(key)];
+    }
+
+    /**
+     * @return прежнее значение или null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value);
+        int slot = slot(key);
+        V old = (V) values[slot];
+        values[slot] = value;
+        snapshot = null;
+        if (old == null) {
+            keys[slot] = key;
+            if (++size > (mask + 1) / 2) {
+                resize();
+            }
+        }
+        return old;
+    }
+
+    /**
+     * @return удалённое значение или null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = slot(key);
+        V old = (V) values[slot];
+        if (old != null) {
+            deleteSlot(slot);
+            size--;
+            snapshot = null;
+        }
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+        snapshot = null;
+    }
+
+    /**
+     * @return неизменяемая копия значений; повторные вызовы без изменений возвращают тот же список
+     */
+    public List<V> snapshot() {
+        if (snapshot == null) {
+            snapshot = Collections.unmodifiableList(values());
+        }
+        return snapshot;
+    }
+
+    public ArrayList<V> values() {
+        ArrayList<V> result = new ArrayList<>(size);
+        forEachValue(result::add);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    public void forEachKey(IntConsumer action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    // ячейка с ключом или первая пустая ячейка на его пути
+    private int slot(int key) {
+        int slot = hash(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // удаление со сдвигом следующих записей назад, чтобы не оставлять «надгробий»
+    private void deleteSlot(int hole) {
+        values[hole] = null;
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (values[next] == null) {
+                return;
+            }
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                values[next] = null;
+                hole = next;
+            }
+        }
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldValues.length * 2);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    // таблица заполняется не более чем наполовину
+    static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity / 2 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,142 @@
+package ru.yandex.javacourse.schedule.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int без упаковки: элементы лежат подряд в массиве (обход в порядке добавления),
+ * а открытая хеш-таблица хранит их позиции, так что contains, add и remove работают за O(1).
+ * При удалении на место элемента переносится последний, поэтому порядок после удалений не сохраняется.
+ */
+public class IntSet {
+    private int[] elements;
+    private int[] slots;
+    private int size;
+    private int mask;
+
+    public IntSet() {
+        this(4);
+    }
+
+    public IntSet(int expectedSize) {
+        elements = new int[Math.max(expectedSize, 4)];
+        allocateSlots(IntMap.tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return slots[slot(value)] != 0;
+    }
+
+    public boolean add(int value) {
+        int slot = slot(value);
+        if (slots[slot] != 0) {
+            return false;
+        }
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+        slots[slot] = size;
+        if (size > (mask + 1) / 2) {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = slot(value);
+        int position = slots[slot] - 1;
+        if (position < 0) {
+            return false;
+        }
+        deleteSlot(slot);
+        int last = elements[--size];
+        if (position != size) {
+            elements[position] = last;
+            slots[slot(last)] = position + 1;
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return elements[index];
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(elements[i]);
+        }
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    public List<Integer> toList() {
+        List<Integer> result = new ArrayList<>(size);
+        forEach(result::add);
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    // ячейка таблицы с позицией значения или первая пустая на его пути; в ячейке хранится позиция + 1
+    private int slot(int value) {
+        int slot = IntMap.hash(value) & mask;
+        while (slots[slot] != 0 && elements[slots[slot] - 1] != value) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void deleteSlot(int hole) {
+        slots[hole] = 0;
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slots[next] == 0) {
+                return;
+            }
+            int home = IntMap.hash(elements[slots[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                slots[next] = 0;
+                hole = next;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        allocateSlots(capacity);
+        for (int i = 0; i < size; i++) {
+            slots[slot(elements[i])] = i + 1;
+        }
+    }
+
+    private void allocateSlots(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+    }
+}
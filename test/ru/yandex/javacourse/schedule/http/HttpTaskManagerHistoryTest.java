@@ -5,13 +5,15 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.yandex.javacourse.schedule.http.handlers.util.GsonFactory;
-import ru.yandex.javacourse.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacourse.schedule.manager.Managers;
 import ru.yandex.javacourse.schedule.manager.TaskManager;
 import ru.yandex.javacourse.schedule.tasks.Task;
 import ru.yandex.javacourse.schedule.tasks.TaskStatus;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
+import java.net.URL;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
@@ -23,7 +25,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpTaskManagerHistoryTest {
-    TaskManager manager = new InMemoryTaskManager();
+    TaskManager manager = Managers.getForServer(false);
     HttpTaskServer server = new HttpTaskServer(manager);
     Gson gson = GsonFactory.create();
     HttpClient client = HttpClient.newHttpClient();
@@ -131,4 +133,60 @@ public class HttpTaskManagerHistoryTest {
 
         assertTrue(history.isEmpty());
     }
+
+    @Test
+    void shouldReturnHistoryPage() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            int id = manager.addNewTask(new Task("T" + i, "D", TaskStatus.NEW));
+            manager.getTask(id);
+        }
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/history?offset=1&limit=1")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        Task[] page = gson.fromJson(response.body(), Task[].class);
+        assertEquals(1, page.length);
+        assertEquals("T1", page[0].getName());
+
+        HttpResponse<String> bad = client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/history?limit=abc")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, bad.statusCode());
+    }
+
+    @Test
+    void shouldKeepHistoryPerClient() throws IOException, InterruptedException {
+        int id = manager.addNewTask(new Task("Task", "Desc", TaskStatus.NEW));
+
+        client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks/" + id)).header("X-Client-Id", "alice").GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        HttpResponse<String> alice = client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/history?client=alice")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> bob = client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/history")).header("X-Client-Id", "bob").GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(1, gson.fromJson(alice.body(), Task[].class).length);
+        assertEquals(0, gson.fromJson(bob.body(), Task[].class).length);
+    }
+
+    @Test
+    void shouldAnswer304UntilHistoryChanges() throws IOException, InterruptedException {
+        int id = manager.addNewTask(new Task("Task", "Desc", TaskStatus.NEW));
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/history")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        HttpRequest conditional = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/history")).header("If-None-Match", etag).GET().build();
+
+        assertEquals(304, client.send(conditional, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        manager.getTask(id);
+        HttpResponse<String> viewed = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, viewed.statusCode(), "Просмотр меняет историю, хотя версия менеджера та же.");
+        assertEquals(1, gson.fromJson(viewed.body(), Task[].class).length);
+    }
+
+    @Test
+    void shouldRejectMalformedQueryEscape() throws IOException {
+        // HttpClient не пропускает такой URI, поэтому запрос отправляется через HttpURLConnection
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/history?client=%zz").openConnection();
+        try {
+            assertEquals(400, connection.getResponseCode());
+        } finally {
+            connection.disconnect();
+        }
+    }
 }
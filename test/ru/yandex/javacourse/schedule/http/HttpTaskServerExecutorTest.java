@@ -0,0 +1,65 @@
+package ru.yandex.javacourse.schedule.http;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.manager.Managers;
+import ru.yandex.javacourse.schedule.manager.TaskManager;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpTaskServerExecutorTest {
+    private static final int PORT = 8081;
+    HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shouldServeConcurrentRequestsOnPool() throws IOException {
+        checkServer(HttpServerConfig.ExecutorType.POOL);
+    }
+
+    @Test
+    void shouldServeConcurrentRequestsOnVirtualThreads() throws IOException {
+        checkServer(HttpServerConfig.ExecutorType.VIRTUAL);
+    }
+
+    @Test
+    void stopShouldNotWaitForDelayWithoutRequests() throws IOException {
+        HttpTaskServer server = new HttpTaskServer(Managers.getConcurrent(), new HttpServerConfig(PORT, 16, HttpServerConfig.ExecutorType.POOL, 4, 5));
+        server.start();
+        long start = System.nanoTime();
+        server.stop();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2), "Остановка без запросов не должна ждать stopDelay.");
+    }
+
+    private void checkServer(HttpServerConfig.ExecutorType type) throws IOException {
+        TaskManager manager = Managers.getConcurrent();
+        HttpTaskServer server = new HttpTaskServer(manager, new HttpServerConfig(PORT, 16, type, 4, 1));
+        server.start();
+        try {
+            int id = manager.addNewTask(new Task("Task", "Desc", TaskStatus.NEW));
+            HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:" + PORT + "/tasks/" + id)).GET().build();
+
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.join().statusCode());
+            }
+            assertEquals(1, manager.getHistory().size());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -172,6 +172,15 @@ class HttpTaskServerSubtasksTest {
         assertEquals(404, response.statusCode());
     }
 
+    @Test
+    void shouldReturn400ForNonIntegerEpicId() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/subtasks"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Sub\",\"status\":\"NEW\",\"epicId\":\"x\"}")).build();
+
+        assertEquals(400, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertTrue(manager.getSubtasks().isEmpty());
+    }
+
     // ======================
     // helpers
     // ======================
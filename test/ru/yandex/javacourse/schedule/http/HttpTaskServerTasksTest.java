@@ -1,6 +1,9 @@
 package ru.yandex.javacourse.schedule.http;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,16 +13,23 @@ import ru.yandex.javacourse.schedule.manager.TaskManager;
 import ru.yandex.javacourse.schedule.tasks.Task;
 import ru.yandex.javacourse.schedule.tasks.TaskStatus;
 
+import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HttpTaskServerTasksTest {
@@ -92,6 +102,45 @@ class HttpTaskServerTasksTest {
     // GET /tasks
     // ======================
 
+    @Test
+    void shouldReturn413WhenBodyTooLarge() throws IOException, InterruptedException {
+        server.stop();
+        server = new HttpTaskServer(manager, new HttpServerConfig(HttpServerConfig.DEFAULT_PORT, 0, HttpServerConfig.ExecutorType.DISPATCHER, 0, 1, 256));
+        server.start();
+        Task task = new Task("Task 1", "x".repeat(1000), TaskStatus.NEW);
+
+        HttpResponse<String> fixedLength = sendPost("/tasks", task);
+        HttpRequest chunked = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks"))
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(gson.toJson(task).getBytes(StandardCharsets.UTF_8)))).build();
+
+        assertEquals(413, fixedLength.statusCode());
+        assertEquals(413, client.send(chunked, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertTrue(manager.getTasks().isEmpty());
+    }
+
+    @Test
+    void shouldReturn400WhenBodyIsNotSingleTask() throws IOException, InterruptedException {
+        for (String body : new String[]{"", "{\"name\":", "{\"name\":\"a\"} {}", "{\"status\":\"UNKNOWN\"}"}) {
+            HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+
+            assertEquals(400, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode(), body);
+        }
+        assertTrue(manager.getTasks().isEmpty());
+    }
+
+    @Test
+    void shouldReturn400WhenContentLengthIsMalformed() throws IOException {
+        // HttpClient не даёт задать Content-Length, поэтому запрос пишется в сокет вручную
+        try (Socket socket = new Socket("localhost", 8080)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST /tasks HTTP/1.1\r\nHost: localhost\r\nContent-Length: 12abc\r\nConnection: close\r\n\r\n{}").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            String status = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            assertEquals("HTTP/1.1 400 Bad Request", status);
+        }
+        assertTrue(manager.getTasks().isEmpty());
+    }
+
     @Test
     void shouldGetAllTasks() throws IOException, InterruptedException {
         manager.addNewTask(new Task("A", "A", TaskStatus.NEW));
@@ -105,6 +154,60 @@ class HttpTaskServerTasksTest {
         assertEquals(2, tasks.length);
     }
 
+    @Test
+    void shouldStreamLargeTaskListChunked() throws IOException, InterruptedException {
+        for (int i = 0; i < 2_000; i++) {
+            manager.addNewTask(new Task("Задача " + i, "Описание", TaskStatus.NEW));
+        }
+
+        HttpResponse<String> response = sendGet("/tasks");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty(), "Ответ должен передаваться без заранее известной длины.");
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(2_000, tasks.length);
+        assertEquals("Задача 1999", tasks[1999].getName());
+    }
+
+    @Test
+    void shouldAnswer304WhileTasksUnchanged() throws IOException, InterruptedException {
+        manager.addNewTask(new Task("Task 1", "Description", TaskStatus.NEW));
+        HttpResponse<String> first = sendGet("/tasks");
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+        assertTrue(etag.startsWith("\"" + manager.getEpoch() + "-"), "ETag прежнего запуска не должен совпасть с новым.");
+
+        HttpRequest conditional = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).header("If-None-Match", etag).GET().build();
+        HttpResponse<String> unchanged = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, unchanged.statusCode());
+        assertTrue(unchanged.body().isEmpty());
+
+        manager.addNewTask(new Task("Task 2", "Description", TaskStatus.NEW));
+        HttpResponse<String> changed = client.send(conditional, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, changed.statusCode());
+        assertEquals(2, gson.fromJson(changed.body(), Task[].class).length);
+        assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void shouldReturnChangesSinceVersion() throws IOException, InterruptedException {
+        int first = manager.addNewTask(new Task("Task 1", "Description", TaskStatus.NEW));
+        long since = manager.getVersion();
+        int second = manager.addNewTask(new Task("Task 2", "Description", TaskStatus.NEW));
+        manager.deleteTask(first);
+
+        JsonObject body = JsonParser.parseString(sendGet("/changes?epoch=" + manager.getEpoch() + "&since=" + since).body()).getAsJsonObject();
+        JsonArray changes = body.getAsJsonArray("changes");
+        assertEquals(manager.getVersion(), body.get("version").getAsLong());
+        assertEquals(2, changes.size());
+        assertEquals(second, changes.get(0).getAsJsonObject().get("id").getAsInt());
+        assertEquals("CREATED", changes.get(0).getAsJsonObject().get("kind").getAsString());
+        assertEquals("DELETED", changes.get(1).getAsJsonObject().get("kind").getAsString());
+        assertEquals(manager.getEpoch(), body.get("epoch").getAsLong());
+        JsonObject stale = JsonParser.parseString(sendGet("/changes?epoch=" + (manager.getEpoch() + 1) + "&since=" + since).body()).getAsJsonObject();
+        assertTrue(stale.get("resync").getAsBoolean(), "Версия из другой эпохи требует пересинхронизации.");
+        assertEquals(400, sendGet("/changes?since=-1").statusCode());
+    }
+
     @Test
     void shouldGetTaskById() throws IOException, InterruptedException {
         Task task = new Task("Task", "Desc", TaskStatus.NEW);
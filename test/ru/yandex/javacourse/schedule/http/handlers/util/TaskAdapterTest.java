@@ -0,0 +1,80 @@
+package ru.yandex.javacourse.schedule.http.handlers.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskAdapterTest {
+    private final Gson gson = GsonFactory.shared();
+    private final LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Test
+    void shouldRoundTripAllTaskKinds() {
+        Task task = new Task(1, "task", "d1", TaskStatus.IN_PROGRESS, start, Duration.ofMinutes(30));
+        Epic epic = new Epic(2, "epic", "d2", TaskStatus.NEW, start, Duration.ofMinutes(15), start.plusMinutes(15));
+        epic.addSubtaskId(3);
+        epic.addSubtaskId(4);
+        Subtask subtask = new Subtask(3, "sub", null, TaskStatus.DONE, 2);
+
+        Task parsedTask = gson.fromJson(gson.toJson(task), Task.class);
+        assertEquals(Task.class, parsedTask.getClass());
+        assertEquals("task", parsedTask.getName());
+        assertEquals(TaskStatus.IN_PROGRESS, parsedTask.getStatus());
+        assertEquals(start, parsedTask.getStartTime());
+        assertEquals(Duration.ofMinutes(30), parsedTask.getDuration());
+
+        Epic parsedEpic = gson.fromJson(gson.toJson(epic), Epic.class);
+        assertEquals(List.of(3, 4), parsedEpic.getSubtaskIds());
+        assertEquals(start.plusMinutes(15), parsedEpic.getEndTime());
+
+        Subtask parsedSubtask = gson.fromJson(gson.toJson(subtask), Subtask.class);
+        assertEquals(2, parsedSubtask.getEpicId());
+        assertNull(parsedSubtask.getDescription());
+        assertNull(parsedSubtask.getStartTime());
+    }
+
+    @Test
+    void shouldWriteFieldsByRuntimeTypeInTaskLists() {
+        Epic epic = new Epic(2, "epic", "d");
+        epic.setInManager();
+        List<Task> tasks = List.of(new Task(1, "task", "d", TaskStatus.NEW), epic, new Subtask(3, "sub", "d", TaskStatus.NEW, 2));
+
+        JsonArray array = JsonParser.parseString(gson.toJson(tasks)).getAsJsonArray();
+        JsonObject task = array.get(0).getAsJsonObject();
+        JsonObject epicJson = array.get(1).getAsJsonObject();
+        JsonObject subtask = array.get(2).getAsJsonObject();
+        assertEquals("task", task.get("type").getAsString());
+        assertFalse(task.has("startTime"));
+        assertEquals("epic", epicJson.get("type").getAsString());
+        assertEquals(0, epicJson.getAsJsonArray("subtaskIds").size());
+        assertFalse(epicJson.has("isInManager"));
+        assertEquals("subTask", subtask.get("type").getAsString());
+        assertEquals(2, subtask.get("epicId").getAsInt());
+    }
+
+    @Test
+    void shouldSkipUnknownFieldsAndIgnoreType() {
+        Task task = gson.fromJson("{\"id\":5,\"type\":\"epic\",\"extra\":{\"a\":[1,2]},\"name\":\"n\",\"status\":null}", Task.class);
+        assertEquals(Task.class, task.getClass());
+        assertEquals(5, task.getId());
+        assertEquals("n", task.getName());
+        assertNull(task.getStatus());
+    }
+
+    @Test
+    void shouldRejectNonIntegerIdsAsSyntaxError() {
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("{\"id\":1.5,\"name\":\"n\"}", Task.class));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("{\"id\":1,\"epicId\":\"x\"}", Subtask.class));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("{\"id\":2,\"subtaskIds\":[3,\"x\"]}", Epic.class));
+    }
+}
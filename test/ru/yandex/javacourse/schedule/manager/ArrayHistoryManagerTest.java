@@ -0,0 +1,60 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayHistoryManagerTest {
+    @Test
+    void shouldMoveRepeatedViewToEnd() {
+        HistoryManager history = new ArrayHistoryManager();
+        Task t1 = new Task(1, "Test 1", "D1", TaskStatus.NEW);
+        Task t2 = new Task(2, "Test 2", "D2", TaskStatus.NEW);
+        history.addTask(t1);
+        history.addTask(t2);
+        history.addTask(t1);
+
+        assertEquals(List.of(t2, t1), history.getHistory());
+    }
+
+    @Test
+    void shouldEvictOldestAndReuseFreedSlots() {
+        HistoryManager history = new ArrayHistoryManager(2);
+        for (int i = 1; i <= 3; i++) {
+            history.addTask(new Task(i, "Test " + i, "D", TaskStatus.NEW));
+        }
+        assertEquals(List.of(2, 3), history.getHistory().stream().map(Task::getId).toList());
+
+        history.remove(2);
+        history.addTask(new Task(4, "Test 4", "D", TaskStatus.NEW));
+        assertEquals(List.of(3, 4), history.getHistory().stream().map(Task::getId).toList());
+
+        history.clear();
+        assertTrue(history.getHistory().isEmpty());
+    }
+
+    @Test
+    void shouldBehaveLikeLinkedHistory() {
+        HistoryManager expected = new InMemoryHistoryManager(50);
+        HistoryManager actual = new ArrayHistoryManager(50);
+        Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(200);
+            if (random.nextInt(4) == 0) {
+                expected.remove(id);
+                actual.remove(id);
+            } else {
+                Task task = new Task(id, "Task " + id, "D", TaskStatus.NEW);
+                expected.addTask(task);
+                actual.addTask(task);
+            }
+        }
+        assertEquals(expected.getHistory(), actual.getHistory());
+        assertEquals(expected.getHistory(10, 5), actual.getHistory(10, 5));
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeLogTest {
+    @Test
+    void shouldRequireResyncOnceChangesAreEvicted() {
+        ChangeLog log = new ChangeLog(3);
+        for (int id = 1; id <= 5; id++) {
+            assertEquals(id, log.append(TaskType.task, id, ChangeLog.Kind.CREATED));
+        }
+
+        assertTrue(log.since(log.epoch(), 1).resync(), "Изменение с версией 2 уже вытеснено.");
+        ChangeLog.Changes changes = log.since(log.epoch(), 2);
+        assertFalse(changes.resync());
+        assertEquals(5, changes.version());
+        assertEquals(3, changes.changes().size());
+        assertEquals(3, changes.changes().get(0).id());
+        assertEquals(1, log.since(log.epoch(), 4).changes().size());
+    }
+
+    @Test
+    void resetShouldForgetEarlierChanges() {
+        ChangeLog log = new ChangeLog(10);
+        log.append(TaskType.epic, 1, ChangeLog.Kind.CREATED);
+        long version = log.reset();
+
+        assertEquals(2, version);
+        assertTrue(log.since(log.epoch(), 1).resync());
+        assertTrue(log.since(log.epoch(), version).changes().isEmpty());
+        log.append(TaskType.epic, 1, ChangeLog.Kind.DELETED);
+        assertEquals(ChangeLog.Kind.DELETED, log.since(log.epoch(), version).changes().get(0).kind());
+    }
+
+    @Test
+    void shouldRequireResyncForVersionFromAnotherEpoch() {
+        ChangeLog before = new ChangeLog(10);
+        before.append(TaskType.task, 1, ChangeLog.Kind.CREATED);
+        long since = before.version();
+        ChangeLog after = new ChangeLog(10);
+        after.append(TaskType.task, 1, ChangeLog.Kind.CREATED);
+        after.append(TaskType.task, 2, ChangeLog.Kind.CREATED);
+
+        ChangeLog.Changes changes = after.since(before.epoch(), since);
+        assertTrue(changes.resync(), "Версия прежнего экземпляра не должна давать дельту в новом.");
+        assertEquals(after.epoch(), changes.epoch());
+        assertFalse(after.since(changes.epoch(), changes.version()).resync());
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+    @Test
+    void shouldApplyBufferedViewsBeforeReadsAndRemovals() {
+        HistoryManager history = new ConcurrentHistoryManager(new InMemoryHistoryManager(), Runnable::run);
+        Task t1 = new Task(1, "Test 1", "D1", TaskStatus.NEW);
+        Task t2 = new Task(2, "Test 2", "D2", TaskStatus.NEW);
+        history.addTask(t1);
+        history.addTask(t2);
+        history.addTask(t1);
+        assertEquals(List.of(t2, t1), history.getHistory());
+
+        history.addTask(t2);
+        history.remove(2);
+        assertEquals(List.of(t1), history.getHistory(), "Удаление должно идти после ранее записанных просмотров.");
+
+        history.addTask(t2);
+        history.clear();
+        assertTrue(history.getHistory().isEmpty());
+    }
+
+    @Test
+    void shouldSkipUnwrittenSlotsAndNotRestoreRemovedTasks() {
+        ConcurrentHistoryManager.ReadBuffer buffer = new ConcurrentHistoryManager.ReadBuffer();
+        HistoryManager history = new InMemoryHistoryManager();
+        Task t1 = new Task(1, "Test 1", "D1", TaskStatus.NEW);
+        Task t2 = new Task(2, "Test 2", "D2", TaskStatus.NEW);
+        long claimed = buffer.claim();
+        buffer.offer(t2);
+        buffer.drainTo(history);
+        assertEquals(List.of(t2), history.getHistory(), "Занятое, но не записанное место не должно останавливать перенос.");
+
+        history.remove(1);
+        buffer.forget(1);
+        buffer.publish(claimed, t1);
+        buffer.drainTo(history);
+        assertEquals(List.of(t2), history.getHistory(), "Просмотр, занявший место до удаления, не должен вернуть задачу.");
+        assertEquals(0, buffer.pending());
+
+        buffer.offer(t1);
+        buffer.drainTo(history);
+        assertEquals(List.of(t2, t1), history.getHistory(), "Новые просмотры удалённой задачи учитываются.");
+    }
+
+    @Test
+    void shouldNotLoseViewsFromManyThreads() throws Exception {
+        int threads = 8;
+        int viewsPerThread = 20_000;
+        HistoryManager history = new ConcurrentHistoryManager(new InMemoryHistoryManager());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * viewsPerThread;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 1; i <= viewsPerThread; i++) {
+                    history.addTask(new Task(base + i, "Task", "D", TaskStatus.NEW));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        List<Task> result = history.getHistory();
+        assertEquals(threads * viewsPerThread, result.size());
+        int[] lastSeen = new int[threads];
+        for (Task task : result) {
+            int thread = (task.getId() - 1) / viewsPerThread;
+            assertTrue(task.getId() > lastSeen[thread], "Просмотры одного потока должны сохранять порядок.");
+            lastSeen[thread] = task.getId();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.exceptions.NotFoundException;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.DONE;
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
+
+public class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    @BeforeEach
+    public void initManager() {
+        manager = (ConcurrentTaskManager) Managers.getConcurrent();
+    }
+
+    @Test
+    void shouldAddTasksFromManyThreadsWithUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime slot = start.plusMinutes(10L * i);
+            futures.add(executor.submit(() -> manager.addNewTask(new Task("T", "D", NEW, slot, Duration.ofMinutes(10)))));
+        }
+        HashSet<Integer> ids = new HashSet<>();
+        for (Future<Integer> future : futures) {
+            ids.add(future.get());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, ids.size(), "id должны быть уникальными.");
+        assertEquals(1000, manager.getTasks().size());
+        assertEquals(1000, manager.getPrioritizedTasks().size());
+        assertFalse(manager.hasAnyCrossing());
+    }
+
+    @Test
+    void shouldKeepEpicStatusConsistentUnderConcurrentSubtasks() throws Exception {
+        Epic epic = createEpic();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(executor.submit(() -> manager.addNewSubtask(new Subtask("S", "D", DONE, epic.getId()))));
+        }
+        for (Future<Integer> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(200, manager.getEpicSubtasks(epic.getId()).size());
+        assertEquals(DONE, manager.getEpic(epic.getId()).getStatus());
+    }
+
+    @Test
+    void shouldKeepTimedTasksConsistentUnderConcurrentUpdatesAndDeletes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int round = 0; round < 20; round++) {
+            int id = manager.addNewTask(new Task("T", "D", NEW, start, Duration.ofMinutes(10)));
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int writer = t;
+                futures.add(executor.submit(() -> {
+                    ready.await();
+                    for (int i = 0; i < 2000; i++) {
+                        try {
+                            if (writer == 0 && i == 1000) {
+                                manager.deleteTask(id);
+                            } else {
+                                manager.updateTask(new Task(id, "T", "D", NEW, start.plusHours(writer * 10_000L + i), Duration.ofMinutes(10)));
+                            }
+                        } catch (NotFoundException ignored) {
+                            // задачу уже удалили
+                        }
+                    }
+                    return null;
+                }));
+            }
+            ready.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(manager.getTasks().size(), manager.getPrioritizedTasks().size(),
+                    "Каждой задаче в хранилище должна соответствовать ровно одна запись в списке по времени.");
+            assertTrue(manager.getTasks().isEmpty(), "Удалённая задача не должна вернуться.");
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void readersShouldGetEpicCopiesNotChangedByLaterWrites() {
+        Epic epic = createEpic();
+        Epic before = manager.getEpic(epic.getId());
+        List<Epic> listed = manager.getEpics();
+        manager.addNewSubtask(new Subtask("S", "D", DONE, epic.getId()));
+
+        assertEquals(0, before.getSubtaskCount(), "Выданный эпик не должен меняться под читателем.");
+        assertEquals(NEW, listed.get(0).getStatus());
+        assertEquals(0, manager.getHistory().stream().mapToInt(task -> ((Epic) task).getSubtaskCount()).sum());
+        Epic after = manager.getEpics().get(0);
+        assertEquals(1, after.getSubtaskCount());
+        assertEquals(DONE, after.getStatus());
+        assertSame(after, manager.getEpics().get(0), "Без изменений список эпиков не пересобирается.");
+    }
+}
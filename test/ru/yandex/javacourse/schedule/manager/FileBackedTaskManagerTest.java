@@ -2,12 +2,29 @@ package ru.yandex.javacourse.schedule.manager;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.exceptions.ManagerLoadException;
+import ru.yandex.javacourse.schedule.exceptions.ManagerSaveException;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.*;
 
 class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     private File tempFile;
@@ -34,18 +51,389 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     }
 
     @Test
-    void shouldHandleFileLoadException() {
-        File badFile = new File("bad_header.csv");
-        try {
-            Files.writeString(badFile.toPath(), "bad_header\n");
+    void shouldRejectFileWithBadHeader() throws IOException {
+        Files.writeString(tempFile.toPath(), "bad_header\n1,task,Task,NEW,Desc\n");
 
-            assertDoesNotThrow(() -> Managers.loadFromFile(badFile.getAbsolutePath()), "Загрузка из файла с неверным заголовком не должна вызывать критического исключения.");
+        assertThrows(ManagerLoadException.class, () -> Managers.loadFromFile(tempFile.getAbsolutePath()),
+                "Нечитаемый снимок нельзя молча заменять пустым менеджером.");
+    }
 
-            badFile.delete();
-        } catch (IOException e) {
-            fail("Ошибка при создании файла для теста исключений.");
+    @Test
+    void shouldRejectBinarySnapshotWithUnknownVersion() throws IOException {
+        manager = Managers.loadFromFile(tempFile.getAbsolutePath(), FileBackedTaskManager.SnapshotFormat.BINARY);
+        manager.addNewTask(new Task("Task", "Desc", NEW));
+        byte[] data = Files.readAllBytes(tempFile.toPath());
+        data[4] = (byte) (TaskBinaryFormat.VERSION + 1);
+        Files.write(tempFile.toPath(), data);
+
+        assertThrows(ManagerLoadException.class, () -> Managers.loadFromFile(tempFile.getAbsolutePath()));
+        assertArrayEquals(data, Files.readAllBytes(tempFile.toPath()), "Снимок не должен перезаписываться.");
+    }
+
+    @Test
+    void shouldStartEmptyWhenFileIsMissing() {
+        assertTrue(tempFile.delete());
+
+        assertTrue(Managers.loadFromFile(tempFile.getAbsolutePath()).getTasks().isEmpty());
+    }
+
+    @Test
+    void shouldReplayJournalOnLoad() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            int taskId = journaled.addNewTask(new Task("Task", "Desc", NEW, LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofMinutes(30)));
+            journaled.addNewTask(new Task("Task 2", "Desc", NEW));
+            int epicId = journaled.addNewEpic(new Epic("Epic", "Desc"));
+            journaled.addNewSubtask(new Subtask("Sub", "Desc", DONE, epicId));
+            journaled.deleteTask(taskId);
+        }
+        assertEquals(5, journalRecords(journalFile), "Каждое изменение должно быть одной записью журнала.");
+
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertEquals(1, loaded.getTasks().size());
+            assertEquals(1, loaded.getSubtasks().size());
+            assertEquals(DONE, loaded.getEpics().get(0).getStatus());
+            assertTrue(loaded.getPrioritizedTasks().isEmpty());
+        }
+    }
+
+    @Test
+    void shouldCompactJournalIntoCsv() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath(), new JournalConfig(3, JournalConfig.SyncMode.NONE, 0, 1))) {
+            journaled.addNewTask(new Task("Task 1", "Desc", NEW));
+            journaled.addNewTask(new Task("Task 2", "Desc", NEW));
+            journaled.addNewTask(new Task("Task 3", "Desc", NEW));
+            journaled.addNewTask(new Task("Task 4", "Desc", NEW));
+        }
+        assertEquals(1, journalRecords(journalFile), "После сжатия в журнале остаются только новые записи.");
+        assertEquals(3, Managers.loadFromFile(tempFile.getAbsolutePath()).getTasks().size(), "В CSV должны быть задачи до сжатия.");
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertEquals(4, loaded.getTasks().size());
+        }
+    }
+
+    @Test
+    void shouldKeepJournalWhenSnapshotFails() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        File blocker = new File(tempFile.getAbsolutePath() + ".tmp");
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            journaled.addNewTask(new Task("Task 1", "Desc", NEW));
+            journaled.addNewTask(new Task("Task 2", "Desc", NEW));
+            // каталог на месте временного файла: снимок записать нельзя
+            assertTrue(blocker.mkdir());
+            assertThrows(ManagerSaveException.class, journaled::compact);
+        } finally {
+            blocker.delete();
+        }
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertEquals(2, loaded.getTasks().size(), "Несжатые записи журнала не должны теряться.");
+        }
+    }
+
+    @Test
+    void shouldNotReplayJournalAlreadyInSnapshot() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        byte[] staleJournal;
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            int first = journaled.addNewTask(new Task("Task 1", "Desc", NEW));
+            int second = journaled.addNewTask(new Task("Task 2", "Desc", NEW));
+            journaled.updateTask(new Task(second, "Task 2 upd", "Desc", DONE));
+            journaled.deleteTask(first);
+            staleJournal = Files.readAllBytes(journalFile.toPath());
+            journaled.compact();
+        }
+        // сбой между записью снимка и очисткой журнала
+        Files.write(journalFile.toPath(), staleJournal);
+
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertEquals(1, loaded.getTasks().size());
+            assertEquals("Task 2 upd", loaded.getTasks().get(0).getName());
+            loaded.addNewTask(new Task("Task 3", "Desc", NEW));
+        }
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertEquals(2, loaded.getTasks().size(), "Новые записи после сбоя должны воспроизводиться.");
+        }
+    }
+
+    @Test
+    void shouldJournalFieldsWithSeparatorsAndDropTornTail() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        int taskId;
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            taskId = journaled.addNewTask(new Task("Купить, продать", "Строка 1\nСтрока 2", NEW));
+        }
+        // обрезанная при сбое запись в конце журнала
+        Files.write(journalFile.toPath(), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            Task task = loaded.getTask(taskId);
+            assertEquals("Купить, продать", task.getName());
+            assertEquals("Строка 1\nСтрока 2", task.getDescription());
+            loaded.addNewTask(new Task("Next", "Desc", NEW));
+        }
+        assertEquals(2, journalRecords(journalFile), "Запись после обрезанного хвоста должна читаться.");
+    }
+
+    @Test
+    void shouldGroupCommitJournalRecords() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        JournalConfig async = new JournalConfig(1000, JournalConfig.SyncMode.ASYNC, 50, 100);
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath(), async)) {
+            for (int i = 0; i < 10; i++) {
+                journaled.addNewTask(new Task("Task " + i, "Desc", NEW));
+            }
+            journaled.flush();
+        }
+        JournalConfig sync = new JournalConfig(1000, JournalConfig.SyncMode.SYNC, 1, 1);
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath(), sync)) {
+            assertEquals(10, journaled.getTasks().size());
+            journaled.deleteTasks();
+        }
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertTrue(loaded.getTasks().isEmpty());
         }
     }
 
+    @Test
+    void shouldJournalBulkDeletesAsSingleRecord() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            int epicId = journaled.addNewEpic(new Epic("Epic", "Desc"));
+            for (int i = 0; i < 5; i++) {
+                journaled.addNewSubtask(new Subtask("Sub " + i, "Desc", NEW, epicId));
+            }
+            journaled.deleteSubtasks();
+            journaled.deleteEpics();
+        }
+        assertEquals(8, journalRecords(journalFile), "Массовое удаление должно попасть в журнал одной записью.");
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertTrue(loaded.getEpics().isEmpty());
+            assertTrue(loaded.getSubtasks().isEmpty());
+        }
+    }
+
+    @Test
+    void shouldPersistUpdates() throws IOException {
+        int taskId = manager.addNewTask(new Task("Task", "Desc", NEW));
+        int epicId = manager.addNewEpic(new Epic("Epic", "Desc"));
+        int subId = manager.addNewSubtask(new Subtask("Sub", "Desc", NEW, epicId));
+        manager.updateTask(new Task(taskId, "Task upd", "Desc", DONE));
+        manager.updateEpic(new Epic(epicId, "Epic upd", "Desc"));
+        manager.updateSubtask(new Subtask(subId, "Sub upd", "Desc", DONE, epicId));
+
+        FileBackedTaskManager loaded = Managers.loadFromFile(tempFile.getAbsolutePath());
+        assertEquals("Task upd", loaded.getTask(taskId).getName());
+        assertEquals("Epic upd", loaded.getEpic(epicId).getName());
+        assertEquals(DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(DONE, loaded.getSubtask(subId).getStatus());
+    }
 
-}
\ No newline at end of file
+    @Test
+    void shouldJournalUpdatesAsSingleRecord() throws IOException {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        int taskId;
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            taskId = journaled.addNewTask(new Task("Task", "Desc", NEW, LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofMinutes(30)));
+            journaled.updateTask(new Task(taskId, "Task upd", "Desc", DONE, LocalDateTime.of(2025, 1, 1, 12, 0), Duration.ofMinutes(30)));
+        }
+        assertEquals(2, journalRecords(journalFile));
+        try (FileBackedTaskManager loaded = Managers.loadFromJournal(tempFile.getAbsolutePath())) {
+            assertEquals("Task upd", loaded.getTask(taskId).getName());
+            assertEquals(LocalDateTime.of(2025, 1, 1, 12, 0), loaded.getPrioritizedTasks().get(0).getStartTime());
+            assertEquals(1, loaded.getPrioritizedTasks().size());
+        }
+    }
+
+    @Test
+    void concurrentWritersShouldShareForce() throws Exception {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        int writers = 8;
+        JournalConfig sync = new JournalConfig(1000, JournalConfig.SyncMode.SYNC, 500, writers);
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath(), sync)) {
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> ids = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                Task task = new Task("Task " + i, "Desc", NEW);
+                ids.add(executor.submit(() -> {
+                    start.await();
+                    return journaled.addNewTask(task);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> id : ids) {
+                assertNotNull(journaled.getTask(id.get(10, TimeUnit.SECONDS)));
+            }
+            executor.shutdown();
+
+            assertEquals(writers, journalRecords(journalFile));
+            int forces = journaled.getJournalForceCount();
+            assertTrue(forces >= 1 && forces < writers, "Записи одновременных писателей должны сбрасываться группами, force(): " + forces);
+        }
+    }
+
+    @Test
+    void shouldFailWritesAfterJournalFlushFailure() throws Exception {
+        File journalFile = new File(tempFile.getAbsolutePath() + ".log");
+        journalFile.deleteOnExit();
+        JournalConfig sync = new JournalConfig(1000, JournalConfig.SyncMode.SYNC, 1, 1);
+        try (FileBackedTaskManager journaled = Managers.loadFromJournal(tempFile.getAbsolutePath(), sync)) {
+            journaled.addNewTask(new Task("Task 1", "Desc", NEW));
+            Thread flusher = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("journal-flusher-" + journalFile.getName()))
+                    .findFirst().orElseThrow();
+            flusher.interrupt();
+            flusher.join(5000);
+
+            assertThrows(ManagerSaveException.class, () -> journaled.addNewTask(new Task("Task 2", "Desc", NEW)),
+                    "Без сброса на диск запись не должна считаться выполненной.");
+        }
+        assertEquals(1, journalRecords(journalFile), "Журнал не должен принимать записи после сбоя сброса.");
+    }
+
+    @Test
+    void shouldRequireResyncAfterReload() {
+        manager.addNewTask(new Task("Task 1", "Desc", NEW));
+        long epoch = manager.getEpoch();
+        long since = manager.getVersion();
+
+        FileBackedTaskManager reloaded = Managers.loadFromFile(tempFile.getAbsolutePath());
+        reloaded.addNewTask(new Task("Task 2", "Desc", NEW));
+        reloaded.addNewTask(new Task("Task 3", "Desc", NEW));
+
+        assertTrue(reloaded.getChanges(epoch, since).resync(), "Версия до перезапуска не должна давать дельту.");
+    }
+
+    @Test
+    void shouldWriteSnapshotWithChecksumAndWithoutTempFile() throws IOException {
+        manager.addNewTask(new Task("Task", "Desc", NEW));
+
+        List<String> lines = Files.readAllLines(tempFile.toPath());
+        assertTrue(lines.get(lines.size() - 1).startsWith("#crc32,"), "В конце снимка должна быть контрольная сумма.");
+        assertFalse(new File(tempFile.getAbsolutePath() + ".tmp").exists(), "Временный файл должен быть переименован.");
+        assertEquals(1, Managers.loadFromFile(tempFile.getAbsolutePath()).getTasks().size());
+    }
+
+    @Test
+    void shouldDetectCorruptedSnapshot() throws IOException {
+        manager.addNewTask(new Task("Task", "Desc", NEW));
+        String content = Files.readString(tempFile.toPath());
+        Files.writeString(tempFile.toPath(), content.replace("Task", "Tusk"));
+
+        assertThrows(ManagerLoadException.class, () -> Managers.loadFromFile(tempFile.getAbsolutePath()));
+    }
+
+    @Test
+    void shouldDetectSnapshotTruncatedBeforeChecksum() throws IOException {
+        manager.addNewTask(new Task("Task", "Desc", NEW));
+        List<String> lines = Files.readAllLines(tempFile.toPath());
+        Files.write(tempFile.toPath(), lines.subList(0, lines.size() - 1));
+
+        assertThrows(ManagerLoadException.class, () -> Managers.loadFromFile(tempFile.getAbsolutePath()));
+    }
+
+    @Test
+    void shouldBulkLoadLargeSnapshot() throws IOException {
+        StringBuilder content = new StringBuilder("id,type,name,status,description,startTime,duration,endTime,epic\n");
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        int id = 0;
+        for (int i = 0; i < 20_000; i++) {
+            Task task = new Task(++id, "Task " + i, "Описание задачи", NEW, start.plusMinutes(10L * id), Duration.ofMinutes(5));
+            content.append(task.toFileString()).append('\n');
+        }
+        int epicId = ++id;
+        content.append(new Epic(epicId, "Epic", "Desc").toFileString()).append('\n');
+        for (int i = 0; i < 10_000; i++) {
+            Subtask subtask = new Subtask(++id, "Sub " + i, "Описание подзадачи", DONE, start.plusMinutes(10L * id), Duration.ofMinutes(5), epicId);
+            content.append(subtask.toFileString()).append('\n');
+        }
+        Files.writeString(tempFile.toPath(), content.toString());
+
+        FileBackedTaskManager loaded = Managers.loadFromFile(tempFile.getAbsolutePath());
+        assertEquals(30_001, loaded.getLoadedRecords());
+        assertEquals(20_000, loaded.getTasks().size());
+        assertEquals(10_000, loaded.getEpicSubtasks(epicId).size());
+        assertEquals(30_000, loaded.getPrioritizedTasks().size());
+        assertEquals(DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(start.plusMinutes(10L * (epicId + 1)), loaded.getEpic(epicId).getStartTime());
+        assertEquals(id + 1, loaded.addNewTask(new Task("New", "Desc", NEW)), "Генератор id должен продолжаться после загруженных.");
+    }
+
+    @Test
+    void shouldRejectSnapshotWithCrossingTasks() throws IOException {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Files.writeString(tempFile.toPath(), "id,type,name,status,description,startTime,duration,endTime,epic\n"
+                + new Task(1, "A", "D", NEW, start, Duration.ofHours(2)).toFileString() + "\n"
+                + new Task(2, "B", "D", NEW, start.plusHours(1), Duration.ofHours(2)).toFileString() + "\n");
+
+        assertThrows(IllegalStateException.class, () -> Managers.loadFromFile(tempFile.getAbsolutePath()));
+    }
+
+    @Test
+    void shouldSaveAndLoadBinarySnapshot() {
+        FileBackedTaskManager binary = Managers.loadFromFile(tempFile.getAbsolutePath(), FileBackedTaskManager.SnapshotFormat.BINARY);
+        int taskId = binary.addNewTask(new Task("Задача, с запятой", null, NEW, LocalDateTime.of(2025, 1, 1, 10, 0, 30), Duration.ofSeconds(90)));
+        int epicId = binary.addNewEpic(new Epic("Epic", "Desc"));
+        int subId = binary.addNewSubtask(new Subtask("Sub", "Desc", DONE, LocalDateTime.of(2025, 1, 2, 10, 0), Duration.ofMinutes(15), epicId));
+
+        FileBackedTaskManager loaded = Managers.loadFromFile(tempFile.getAbsolutePath());
+        Task task = loaded.getTask(taskId);
+        assertEquals("Задача, с запятой", task.getName());
+        assertNull(task.getDescription());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0, 30), task.getStartTime());
+        assertEquals(Duration.ofSeconds(90), task.getDuration());
+        assertEquals(epicId, loaded.getSubtask(subId).getEpicId());
+        assertEquals(DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 2, 10, 15), loaded.getEpic(epicId).getEndTime());
+    }
+
+    @Test
+    void shouldConvertLegacyCsvToBinary() throws IOException {
+        Files.writeString(tempFile.toPath(), """
+                id,type,name,status,description,startTime,duration,endTime,epic
+                1,task,Покупки,NEW,Купить продукты в магазине
+                3,epic,Переезд,IN_PROGRESS,Собрать вещи и переехать
+                4,subTask,Упаковать вещи,NEW,Коробки одежда техника,3
+                5,subTask,Заказать грузовик,DONE,Найти подходящую компанию,3
+                """);
+        File binaryFile = File.createTempFile("tasks", ".bin");
+        binaryFile.deleteOnExit();
+
+        FileBackedTaskManager.convertToBinary(tempFile.getAbsolutePath(), binaryFile.getAbsolutePath());
+
+        FileBackedTaskManager loaded = Managers.loadFromFile(binaryFile.getAbsolutePath());
+        assertEquals(1, loaded.getTasks().size());
+        assertEquals(2, loaded.getEpicSubtasks(3).size());
+        assertEquals(IN_PROGRESS, loaded.getEpic(3).getStatus());
+    }
+
+    @Test
+    void shouldWriteTaskWithoutStatusInBinaryFormat() throws IOException {
+        Task task = new Task("Task", "Desc", null);
+        task.setId(7);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskBinaryFormat.write(out, List.of(task));
+
+        Task loaded = TaskBinaryFormat.read(out.toByteArray()).get(0);
+        assertEquals(7, loaded.getId());
+        assertNull(loaded.getStatus());
+    }
+
+    private static int journalRecords(File journalFile) throws IOException {
+        try (TaskJournal journal = new TaskJournal(journalFile.toPath())) {
+            journal.replay(record -> {
+            });
+            return journal.size();
+        }
+    }
+}
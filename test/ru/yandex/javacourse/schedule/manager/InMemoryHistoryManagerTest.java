@@ -100,4 +100,30 @@ public class InMemoryHistoryManagerTest {
 
         assertTrue(historyManager.getHistory().isEmpty(), "История должна быть очищена.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldEvictOldestWhenFull() {
+        HistoryManager bounded = new InMemoryHistoryManager(2);
+        Task t1 = new Task(1, "Test 1", "D1", TaskStatus.NEW);
+        Task t2 = new Task(2, "Test 2", "D2", TaskStatus.NEW);
+        Task t3 = new Task(3, "Test 3", "D3", TaskStatus.NEW);
+        bounded.addTask(t1);
+        bounded.addTask(t2);
+        bounded.addTask(t1); // [t2, t1]
+        bounded.addTask(t3);
+
+        assertEquals(List.of(t1, t3), bounded.getHistory(), "Должна вытесняться самая давняя запись.");
+    }
+
+    @Test
+    void shouldReturnHistoryPage() {
+        for (int i = 1; i <= 5; i++) {
+            historyManager.addTask(new Task(i, "Test " + i, "D", TaskStatus.NEW));
+        }
+
+        assertEquals(List.of(2, 3), historyManager.getHistory(1, 2).stream().map(Task::getId).toList());
+        assertEquals(List.of(5), historyManager.getHistory(4, 10).stream().map(Task::getId).toList());
+        assertTrue(historyManager.getHistory(10, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> historyManager.getHistory(-1, 1));
+    }
+}
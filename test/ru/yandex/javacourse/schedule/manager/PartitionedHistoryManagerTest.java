@@ -0,0 +1,139 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.Task;
+import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedHistoryManagerTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final HistoryManager history = new PartitionedHistoryManager(() -> new InMemoryHistoryManager(2), 2,
+            Duration.ofMinutes(1), clock::get);
+    private final Task t1 = new Task(1, "Test 1", "D1", TaskStatus.NEW);
+    private final Task t2 = new Task(2, "Test 2", "D2", TaskStatus.NEW);
+
+    @AfterEach
+    void resetClient() {
+        PartitionedHistoryManager.setCurrentClient(null);
+    }
+
+    @Test
+    void shouldKeepSeparateHistoryPerClient() {
+        PartitionedHistoryManager.setCurrentClient("alice");
+        history.addTask(t1);
+        PartitionedHistoryManager.setCurrentClient("bob");
+        history.addTask(t2);
+        assertEquals(List.of(t2), history.getHistory());
+
+        history.remove(1);
+        PartitionedHistoryManager.setCurrentClient("alice");
+        assertTrue(history.getHistory().isEmpty(), "Удаление задачи должно убирать её из всех историй.");
+
+        PartitionedHistoryManager.setCurrentClient(null);
+        assertTrue(history.getHistory().isEmpty(), "У запросов без клиента своя общая история.");
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedPartitionWhenFull() {
+        PartitionedHistoryManager.setCurrentClient("a");
+        history.addTask(t1);
+        clock.addAndGet(10);
+        PartitionedHistoryManager.setCurrentClient("b");
+        history.addTask(t1);
+        clock.addAndGet(10);
+        PartitionedHistoryManager.setCurrentClient("a");
+        history.addTask(t2);
+        clock.addAndGet(10);
+        PartitionedHistoryManager.setCurrentClient("c");
+        history.addTask(t1);
+
+        assertEquals(2, ((PartitionedHistoryManager) history).getPartitionCount());
+        PartitionedHistoryManager.setCurrentClient("b");
+        assertTrue(history.getHistory().isEmpty(), "История b использовалась давнее всех и должна быть вытеснена.");
+        PartitionedHistoryManager.setCurrentClient("a");
+        assertEquals(List.of(t1, t2), history.getHistory());
+    }
+
+    @Test
+    void shouldDropIdlePartitions() {
+        PartitionedHistoryManager.setCurrentClient("a");
+        history.addTask(t1);
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        PartitionedHistoryManager.setCurrentClient("b");
+        history.addTask(t2);
+
+        assertEquals(1, ((PartitionedHistoryManager) history).getPartitionCount());
+        PartitionedHistoryManager.setCurrentClient("a");
+        assertTrue(history.getHistory().isEmpty());
+    }
+
+    @Test
+    void shouldNeverDropSharedHistory() {
+        history.addTask(t1);
+        PartitionedHistoryManager.setCurrentClient("a");
+        history.addTask(t2);
+        clock.addAndGet(10);
+        PartitionedHistoryManager.setCurrentClient("b");
+        history.addTask(t2);
+        clock.addAndGet(10);
+        PartitionedHistoryManager.setCurrentClient("c");
+        history.addTask(t2);
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        PartitionedHistoryManager.setCurrentClient("d");
+        history.addTask(t2);
+
+        assertEquals(1, ((PartitionedHistoryManager) history).getPartitionCount());
+        PartitionedHistoryManager.setCurrentClient(null);
+        assertEquals(List.of(t1), history.getHistory(), "Общая история не вытесняется и не убирается по простою.");
+        history.remove(1);
+        assertTrue(history.getHistory().isEmpty());
+        PartitionedHistoryManager.setCurrentClient("d");
+        assertEquals(List.of(t2), history.getHistory());
+    }
+
+    @Test
+    void recreatedPartitionShouldNotRepeatModCount() {
+        PartitionedHistoryManager.setCurrentClient("a");
+        history.addTask(t1);
+        long before = history.getModCount();
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        PartitionedHistoryManager.setCurrentClient("b");
+        history.addTask(t2);
+
+        PartitionedHistoryManager.setCurrentClient("a");
+        assertEquals(0, history.getModCount(), "Простаивавшая история убрана.");
+        history.addTask(t2);
+        assertNotEquals(before, history.getModCount());
+    }
+
+    @Test
+    void shouldForgetViewersOfTasksEvictedBySizeCap() {
+        PartitionedHistoryManager.setCurrentClient("a");
+        for (int id = 1; id <= 100; id++) {
+            history.addTask(new Task(id, "Test " + id, "D", TaskStatus.NEW));
+        }
+
+        assertEquals(2, ((PartitionedHistoryManager) history).getIndexedTaskCount(),
+                "В индексе остаются только задачи, которые есть в истории.");
+    }
+
+    @Test
+    void shouldRemoveTaskViewedAgainAfterEvictionFromBufferedHistory() {
+        HistoryManager buffered = new PartitionedHistoryManager(() -> new ConcurrentHistoryManager(new InMemoryHistoryManager(1), Runnable::run));
+        PartitionedHistoryManager.setCurrentClient("a");
+        buffered.addTask(t1);
+        buffered.addTask(t2);
+        buffered.addTask(t1);
+        // при переносе буфера t1 сначала вытесняется просмотром t2, а затем возвращается
+        assertEquals(List.of(t1), buffered.getHistory());
+
+        buffered.remove(1);
+        assertTrue(buffered.getHistory().isEmpty(), "Ключ клиента должен вернуться в индекс вместе с задачей.");
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.javacourse.schedule.manager;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.javacourse.schedule.tasks.Epic;
+import ru.yandex.javacourse.schedule.tasks.Subtask;
+import ru.yandex.javacourse.schedule.tasks.Task;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.*;
+
+public class TaskCsvParserTest {
+    @Test
+    void shouldParseWhatToFileStringWrites() {
+        Task task = new Task(1, "Имя", "Описание", IN_PROGRESS, LocalDateTime.of(2025, 3, 4, 5, 6, 7, 120_000_000), Duration.ofMinutes(90));
+        Task parsed = TaskCsvParser.parseLine(task.toFileString());
+
+        assertEquals(1, parsed.getId());
+        assertEquals("Имя", parsed.getName());
+        assertEquals("Описание", parsed.getDescription());
+        assertEquals(IN_PROGRESS, parsed.getStatus());
+        assertEquals(task.getStartTime(), parsed.getStartTime());
+        assertEquals(Duration.ofMinutes(90), parsed.getDuration());
+    }
+
+    @Test
+    void shouldParseAllTypesWithEmptyValuesAndCrlf() {
+        byte[] data = ("2,epic,E,DONE,D,???,0,???\r\n\n3,subTask,S,NEW,D,2025-01-01T10:00,15,2025-01-01T10:15,2\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+        TaskCsvParser parser = new TaskCsvParser(data, 0, data.length);
+
+        Task epic = parser.next();
+        assertInstanceOf(Epic.class, epic);
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertEquals(DONE, epic.getStatus());
+
+        Task subtask = parser.next();
+        assertInstanceOf(Subtask.class, subtask);
+        assertEquals(2, ((Subtask) subtask).getEpicId());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), subtask.getStartTime());
+        assertFalse(parser.hasNext());
+    }
+
+    @Test
+    void shouldRejectUnknownType() {
+        assertThrows(IllegalArgumentException.class, () -> TaskCsvParser.parseLine("1,story,N,NEW,D,???,???,???"));
+    }
+}
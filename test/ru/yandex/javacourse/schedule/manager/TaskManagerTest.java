@@ -6,6 +6,7 @@ import ru.yandex.javacourse.schedule.tasks.Epic;
 import ru.yandex.javacourse.schedule.tasks.Subtask;
 import ru.yandex.javacourse.schedule.tasks.Task;
 import ru.yandex.javacourse.schedule.tasks.TaskStatus;
+import ru.yandex.javacourse.schedule.tasks.TaskType;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -201,4 +202,128 @@ public abstract class TaskManagerTest<T extends TaskManager> {
 
         assertFalse(manager.hasAnyCrossing(), "Пересечений быть не должно.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldRejectCrossingWithNeighboursOnInsertAndUpdate() {
+        Task t1 = new Task("T1", "D1", NEW, LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofHours(1));
+        Task t2 = new Task("T2", "D2", NEW, LocalDateTime.of(2025, 1, 1, 14, 0), Duration.ofHours(1));
+        manager.addNewTask(t1);
+        int id2 = manager.addNewTask(t2);
+
+        Task between = new Task("T3", "D3", NEW, LocalDateTime.of(2025, 1, 1, 12, 0), Duration.ofHours(3));
+        assertThrows(IllegalStateException.class, () -> manager.addNewTask(between), "Пересечение со следующей задачей.");
+
+        Task moved = new Task(id2, "T2", "D2", NEW, LocalDateTime.of(2025, 1, 1, 10, 30), Duration.ofHours(1));
+        assertThrows(IllegalStateException.class, () -> manager.updateTask(moved), "Пересечение с предыдущей задачей.");
+
+        assertEquals(2, manager.getPrioritizedTasks().size());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 14, 0), manager.getPrioritizedTasks().get(1).getStartTime());
+        assertFalse(manager.hasAnyCrossing());
+    }
+
+    @Test
+    void shouldDeleteUntimedTaskWhenTimedTasksExist() {
+        manager.addNewTask(new Task("Timed", "D", NEW, LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofHours(1)));
+        int id = manager.addNewTask(new Task("Untimed", "D", NEW));
+
+        assertDoesNotThrow(() -> manager.deleteTask(id));
+        assertEquals(1, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void shouldMoveSubtaskBetweenEpicsOnUpdate() {
+        int from = manager.addNewEpic(new Epic("E1", "D1"));
+        int to = manager.addNewEpic(new Epic("E2", "D2"));
+        int subtaskId = manager.addNewSubtask(new Subtask("S", "D", DONE, from));
+
+        manager.updateSubtask(new Subtask(subtaskId, "S", "D", DONE, to));
+
+        assertTrue(manager.getEpicSubtasks(from).isEmpty(), "Подзадача должна уйти из старого эпика.");
+        assertEquals(NEW, manager.getEpic(from).getStatus());
+        assertEquals(List.of(subtaskId), manager.getEpic(to).getSubtaskIds());
+        assertEquals(DONE, manager.getEpic(to).getStatus());
+    }
+
+    @Test
+    void bulkDeletesShouldKeepOtherKindsInHistoryAndPriority() {
+        int taskId = manager.addNewTask(new Task("T", "D", NEW, LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofHours(1)));
+        int epicId = manager.addNewEpic(new Epic("E", "D"));
+        int subtaskId = manager.addNewSubtask(new Subtask("S", "D", NEW, LocalDateTime.of(2025, 1, 1, 12, 0), Duration.ofHours(1), epicId));
+        manager.getTask(taskId);
+        manager.getEpic(epicId);
+        manager.getSubtask(subtaskId);
+
+        manager.deleteSubtasks();
+        assertEquals(2, manager.getHistory().size(), "Из истории удаляются только подзадачи.");
+        assertEquals(List.of(taskId), manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertTrue(manager.getEpic(epicId).getSubtaskIds().isEmpty());
+
+        manager.deleteTasks();
+        assertEquals(List.of(epicId), manager.getHistory().stream().map(Task::getId).toList(), "Эпик должен остаться в истории.");
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+
+        manager.deleteEpics();
+        assertTrue(manager.getEpics().isEmpty());
+        assertTrue(manager.getHistory().isEmpty());
+    }
+
+    @Test
+    void listAccessorsShouldReturnImmutableSnapshots() {
+        manager.addNewTask(new Task("T1", "D", NEW, LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofHours(1)));
+        List<Task> tasks = manager.getTasks();
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertSame(tasks, manager.getTasks(), "Без изменений должен возвращаться тот же снимок.");
+        assertSame(prioritized, manager.getPrioritizedTasks());
+        assertThrows(UnsupportedOperationException.class, () -> tasks.add(new Task("T", "D", NEW)));
+
+        manager.addNewTask(new Task("T2", "D", NEW, LocalDateTime.of(2025, 1, 1, 12, 0), Duration.ofHours(1)));
+        assertEquals(1, tasks.size(), "Старый снимок не должен меняться.");
+        assertEquals(2, manager.getTasks().size());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void versionsShouldGrowOnWritesOnly() {
+        long start = manager.getVersion();
+        int taskId = manager.addNewTask(new Task("T", "D", NEW));
+        long taskVersion = manager.getVersion(TaskType.task);
+        assertTrue(taskVersion > start);
+        assertEquals(manager.getVersion(), taskVersion);
+
+        manager.getTask(taskId);
+        manager.getTasks();
+        assertEquals(taskVersion, manager.getVersion(), "Чтение не должно менять версию.");
+
+        Epic epic = createEpic();
+        long epicVersion = manager.getVersion(TaskType.epic);
+        createSubtask(epic.getId(), NEW);
+        assertTrue(manager.getVersion(TaskType.epic) > epicVersion, "Подзадача меняет и эпик.");
+        assertTrue(manager.getVersion(TaskType.epic) >= manager.getVersion(TaskType.subTask));
+        assertEquals(taskVersion, manager.getVersion(TaskType.task), "Версия задач не должна меняться.");
+
+        long beforeDelete = manager.getVersion();
+        assertThrows(NotFoundException.class, () -> manager.deleteTask(-1));
+        assertEquals(beforeDelete, manager.getVersion(), "Неудачная операция не меняет версию.");
+        manager.deleteTasks();
+        assertTrue(manager.getVersion(TaskType.task) > beforeDelete);
+    }
+
+    @Test
+    void changesShouldListWritesAfterVersion() {
+        Epic epic = createEpic();
+        long since = manager.getVersion();
+        Subtask subtask = createSubtask(epic.getId(), NEW);
+        manager.deleteSubtask(subtask.getId());
+
+        ChangeLog.Changes changes = manager.getChanges(manager.getEpoch(), since);
+        assertFalse(changes.resync());
+        assertEquals(manager.getVersion(), changes.version());
+        assertEquals(List.of(
+                new ChangeLog.Change(since + 1, TaskType.subTask, subtask.getId(), ChangeLog.Kind.CREATED),
+                new ChangeLog.Change(since + 2, TaskType.epic, epic.getId(), ChangeLog.Kind.UPDATED),
+                new ChangeLog.Change(since + 3, TaskType.subTask, subtask.getId(), ChangeLog.Kind.DELETED),
+                new ChangeLog.Change(since + 4, TaskType.epic, epic.getId(), ChangeLog.Kind.UPDATED)), changes.changes());
+        assertTrue(manager.getChanges(changes.epoch(), changes.version()).changes().isEmpty());
+        assertTrue(manager.getChanges(changes.epoch(), changes.version() + 1).resync(), "Версия из будущего требует пересинхронизации.");
+    }
+}
@@ -8,6 +8,9 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.DONE;
+import static ru.yandex.javacourse.schedule.tasks.TaskStatus.IN_PROGRESS;
 import static ru.yandex.javacourse.schedule.tasks.TaskStatus.NEW;
 
 public class EpicTest {
@@ -61,4 +64,30 @@ public class EpicTest {
         assertEquals(Duration.ofMinutes(90), savedEpic.getDuration());
     }
 
+    @Test
+    void shouldUpdateAggregatesOnSubtaskChanges() {
+        Epic epic = new Epic(1, "Epic", "desc");
+        Subtask first = new Subtask(2, "s1", "d", NEW, LocalDateTime.of(2025, 1, 1, 10, 0), Duration.ofMinutes(60), 1);
+        Subtask last = new Subtask(3, "s2", "d", DONE, LocalDateTime.of(2025, 1, 1, 12, 0), Duration.ofMinutes(30), 1);
+        epic.putSubtask(first);
+        epic.putSubtask(last);
+        assertEquals(IN_PROGRESS, epic.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 12, 30), epic.getEndTime());
+
+        epic.removeSubtask(3);
+        assertEquals(NEW, epic.getStatus(), "after removing the only DONE subtask epic should be NEW");
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 0), epic.getEndTime(), "end should fall back to the remaining subtask");
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+
+        epic.putSubtask(new Subtask(2, "s1", "d", DONE, LocalDateTime.of(2025, 1, 2, 10, 0), Duration.ofMinutes(15), 1));
+        assertEquals(DONE, epic.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 2, 10, 0), epic.getStartTime(), "replaced subtask should not leave its old start");
+        assertEquals(Duration.ofMinutes(15), epic.getDuration());
+
+        epic.cleanSubtaskIds();
+        assertEquals(NEW, epic.getStatus());
+        assertEquals(Duration.ZERO, epic.getDuration());
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+    }
 }
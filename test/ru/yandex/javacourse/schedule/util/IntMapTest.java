@@ -0,0 +1,52 @@
+package ru.yandex.javacourse.schedule.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntMapTest {
+    @Test
+    void shouldPutGetAndRemove() {
+        IntMap<String> map = new IntMap<>();
+        assertNull(map.put(1, "a"));
+        assertEquals("a", map.put(1, "b"));
+        assertEquals("b", map.get(1));
+        assertTrue(map.containsKey(1));
+        assertEquals("b", map.remove(1));
+        assertNull(map.remove(1));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void shouldIterateSmallKeysInAscendingOrder() {
+        IntMap<Integer> map = new IntMap<>();
+        for (int key : new int[]{5, 1, 3, 2, 4}) {
+            map.put(key, key);
+        }
+        assertEquals(List.of(1, 2, 3, 4, 5), map.values());
+    }
+
+    @Test
+    void shouldMatchHashMapUnderRandomOperations() {
+        IntMap<Integer> map = new IntMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // ключи с общим младшим битом дают длинные цепочки пробирования
+            int key = random.nextInt(2_000) * 64;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        map.forEachKey(key -> assertTrue(expected.containsKey(key)));
+    }
+}
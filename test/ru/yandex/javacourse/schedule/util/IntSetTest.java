@@ -0,0 +1,52 @@
+package ru.yandex.javacourse.schedule.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSetTest {
+    @Test
+    void shouldKeepInsertionOrderAndSkipDuplicates() {
+        IntSet set = new IntSet();
+        assertTrue(set.add(3));
+        assertTrue(set.add(1));
+        assertFalse(set.add(3));
+        assertEquals(List.of(3, 1), set.toList());
+        assertEquals("[3, 1]", set.toString());
+    }
+
+    @Test
+    void shouldMoveLastElementIntoRemovedPosition() {
+        IntSet set = new IntSet();
+        for (int i = 1; i <= 4; i++) {
+            set.add(i);
+        }
+        assertTrue(set.remove(2));
+        assertFalse(set.remove(2));
+        assertEquals(List.of(1, 4, 3), set.toList());
+        assertTrue(set.contains(4));
+    }
+
+    @Test
+    void shouldMatchHashSetUnderRandomOperations() {
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(1_000) * 32;
+            if (random.nextBoolean()) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        set.forEach(value -> assertTrue(expected.contains(value)));
+        expected.forEach(value -> assertTrue(set.contains(value)));
+    }
+}